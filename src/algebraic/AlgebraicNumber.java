@@ -1,104 +1,162 @@
 package algebraic;
 
+import java.util.Arrays;
+
 import polynomial.Polynomial;
-import polynomial.PolynomialDivision;
 import polynomial.PolynomialGCD;
 import interfaces.Field;
+import interfaces.RingContext;
 
 public class AlgebraicNumber<F extends Field<F>> implements Field<AlgebraicNumber<F>>
 {
-    Polynomial<F> minPoly;
+    NumberField<F> field;
+    F[] coefs; // dense, length deg(minPoly)
     Polynomial<F> number;
     F obj;
-    
+
     public AlgebraicNumber(Polynomial<F> number, Polynomial<F> minPoly)
     {
-	this.minPoly = Polynomial.monic(minPoly);
-	this.number = number;
-	this.obj = minPoly.obj;
-	simplify();
+	this(number, NumberField.of(minPoly));
+    }
+
+    public AlgebraicNumber(Polynomial<F> number, NumberField<F> field)
+    {
+	this(field, field.vector(number));
+    }
+
+    /**
+     * Number with the reduced coefficient vector c
+     */
+    AlgebraicNumber(NumberField<F> field, F[] c)
+    {
+	this.field = field;
+	this.coefs = c;
+	this.obj = field.getMinimalPolynomial().obj;
+    }
+
+    private AlgebraicNumber<F> create(F[] c)
+    {
+	return new AlgebraicNumber<F>(field, c);
     }
-    
-    private void simplify()
+
+    public NumberField<F> getField()
     {
-	number = PolynomialDivision.polynomialDivision(number, minPoly).getSecond();
+	return field;
     }
-    
+
     public Polynomial<F> getMinimalPolynomial()
     {
-	return minPoly;
+	return field.getMinimalPolynomial();
     }
-    
+
     public Polynomial<F> getNumber()
     {
+	if(number == null)
+	    number = new Polynomial<F>(obj, coefs);
 	return number;
     }
-    
+
+    @Override
+    public RingContext<AlgebraicNumber<F>> context()
+    {
+	return field.context();
+    }
+
     @Override
     public AlgebraicNumber<F> NONE()
     {
-	return new AlgebraicNumber<F>(number.NONE(), minPoly);
+	return context().NONE();
     }
 
     @Override
     public AlgebraicNumber<F> ZERO()
     {
-	return new AlgebraicNumber<F>(number.ZERO(), minPoly);
+	return context().ZERO();
     }
 
     @Override
     public AlgebraicNumber<F> ONE()
     {
-	return new AlgebraicNumber<F>(number.ONE(), minPoly);
+	return context().ONE();
     }
 
     @Override
     public AlgebraicNumber<F> add(AlgebraicNumber<F> b)
     {
-	if(!this.getMinimalPolynomial().equals(b.getMinimalPolynomial()))
-	    throw new IllegalArgumentException("Different Extensions");
-	return new AlgebraicNumber<F>(this.getNumber().add(b.getNumber()), this.getMinimalPolynomial());
+	if(!field.isSame(b.field))
+	{
+	    // numbers of different extensions are combined in the compositum
+	    NumberField<F> k = field.join(b.field);
+	    return k.embed(this).add(k.embed(b));
+	}
+	F[] c = Polynomial.newArray(obj, coefs.length);
+	for(int i = 0; i < c.length; i++)
+	    c[i] = coefs[i].add(b.coefs[i]);
+	return create(c);
     }
 
     @Override
     public AlgebraicNumber<F> sub(AlgebraicNumber<F> b)
     {
-	if(!this.getMinimalPolynomial().equals(b.getMinimalPolynomial()))
-	    throw new IllegalArgumentException("Different Extensions");
-	return new AlgebraicNumber<F>(this.getNumber().sub(b.getNumber()), this.getMinimalPolynomial());
+	if(!field.isSame(b.field))
+	{
+	    NumberField<F> k = field.join(b.field);
+	    return k.embed(this).sub(k.embed(b));
+	}
+	F[] c = Polynomial.newArray(obj, coefs.length);
+	for(int i = 0; i < c.length; i++)
+	    c[i] = coefs[i].sub(b.coefs[i]);
+	return create(c);
     }
 
     @Override
     public AlgebraicNumber<F> mul(AlgebraicNumber<F> b)
     {
-	if(!this.getMinimalPolynomial().equals(b.getMinimalPolynomial()))
-	    throw new IllegalArgumentException("Different Extensions");
-	return new AlgebraicNumber<F>(this.getNumber().mul(b.getNumber()), this.getMinimalPolynomial());
+	if(!field.isSame(b.field))
+	{
+	    NumberField<F> k = field.join(b.field);
+	    return k.embed(this).mul(k.embed(b));
+	}
+	return create(field.multiply(coefs, b.coefs));
     }
 
     @Override
     public AlgebraicNumber<F> negate()
     {
-	return new AlgebraicNumber<F>(number.negate(), minPoly);
+	F[] c = Polynomial.newArray(obj, coefs.length);
+	for(int i = 0; i < c.length; i++)
+	    c[i] = coefs[i].negate();
+	return create(c);
     }
 
     @Override
     public boolean isZero()
     {
-	return number.isZero();
+	for(F c : coefs)
+	    if(!c.isZero())
+		return false;
+	return true;
     }
 
     @Override
     public boolean isOne()
     {
-	return number.isOne();
+	if(!coefs[0].isOne())
+	    return false;
+	for(int i = 1; i < coefs.length; i++)
+	    if(!coefs[i].isZero())
+		return false;
+	return true;
     }
 
     @Override
     public AlgebraicNumber<F> div(AlgebraicNumber<F> b)
     {
-	if(!this.getMinimalPolynomial().equals(b.getMinimalPolynomial()))
-	    throw new IllegalArgumentException("Different Extensions");
+	if(!field.isSame(b.field))
+	{
+	    NumberField<F> k = field.join(b.field);
+	    return k.embed(this).div(k.embed(b));
+	}
 	return this.mul(b.invert());
     }
 
@@ -107,8 +165,8 @@ public class AlgebraicNumber<F extends Field<F>> implements Field<AlgebraicNumbe
     {
 	if(this.isZero())
 	    throw new IllegalStateException("Number is zero");
-	Polynomial<F> s = PolynomialGCD.polynomialHalfExtendedGCD(number, minPoly).getFirst();
-	return new AlgebraicNumber<F>(s, minPoly);
+	Polynomial<F> s = PolynomialGCD.polynomialHalfExtendedGCD(getNumber(), getMinimalPolynomial()).getFirst();
+	return create(field.vector(s));
     }
 
     @Override
@@ -123,8 +181,27 @@ public class AlgebraicNumber<F extends Field<F>> implements Field<AlgebraicNumbe
 	return this.mul(this.pow(p - 1));
     }
 
+    /**
+     * Numbers are equal if they have the same coefficients in the same
+     * extension (numbers of different extensions are never equal)
+     */
+    public boolean equals(Object b)
+    {
+	if(!(b instanceof AlgebraicNumber<?>))
+	    return false;
+	AlgebraicNumber<?> a = (AlgebraicNumber<?>) b;
+	if(a == this)
+	    return true;
+	return a.field.getMinimalPolynomial().equals(field.getMinimalPolynomial()) && Arrays.equals(a.coefs, coefs);
+    }
+
+    public int hashCode()
+    {
+	return 31 * field.getMinimalPolynomial().hashCode() + Arrays.hashCode(coefs);
+    }
+
     public String toString()
     {
-	return "AN("+number+"|"+minPoly+")";
+	return "AN("+getNumber()+"|"+getMinimalPolynomial()+")";
     }
 }
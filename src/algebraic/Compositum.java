@@ -0,0 +1,238 @@
+package algebraic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import misc.Budget;
+import modular.ChineseRemainder;
+import modular.ModularArithmetic;
+import modular.Primes;
+import number.BigRational;
+import polynomial.Polynomial;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Compositum of two number fields Q(a) and Q(b) with the primitive
+ *         element c = b + k*a. For the minimal polynomials f of a and g of b
+ *         the defining polynomial is h(z) = Res_y(f(y), g(z - k*y)) and a =
+ *         -T(c)/h'(c), where T is the derivative of Res_y(f(y), g(z - (k+t)*y))
+ *         by t at t = 0. Both are computed modulo word-sized primes by
+ *         evaluation at points z and interpolation, the derivative at a point
+ *         is Res * Tr(B1/B0) in Z/pZ[y]/(f). The rational coefficients are
+ *         recovered by Chinese remaindering and rational reconstruction. k is
+ *         the smallest positive integer for which h is squarefree. If the
+ *         fields intersect, h is reducible and Q[z]/(h) is a product of
+ *         fields: which factor holds b + k*a depends on how the common
+ *         subfield is embedded into both, which abstract fields do not say,
+ *         so such fields are rejected.
+ */
+class Compositum
+{
+    private static final int BATCH_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * New field generated by b + k*a with a and b registered as subfields
+     * @throws ArithmeticException if a minimal polynomial is not squarefree
+     * @throws IllegalArgumentException if the fields intersect (h is
+     *         reducible)
+     */
+    static NumberField<BigRational> of(NumberField<BigRational> a, NumberField<BigRational> b)
+    {
+	Polynomial<BigRational> f = a.getMinimalPolynomial(), g = b.getMinimalPolynomial();
+	int n = a.degree() * b.degree();
+	int k = shift(f, g);
+	int primeIndex = 0;
+	BigInteger modulus = BigInteger.ONE;
+	BigInteger[] residues = new BigInteger[2 * n + 1];
+	Arrays.fill(residues, BigInteger.ZERO);
+	BigRational[] candidate = null;
+	while(true)
+	{
+	    // the images are computed by other threads, the batch is charged here
+	    Budget.charge((long) BATCH_SIZE * n * n * n);
+	    final int first = primeIndex;
+	    long[][] images = IntStream.range(0, BATCH_SIZE).parallel()
+		    .mapToObj(i -> image(f, g, k, Primes.prime(first + i)))
+		    .toArray(long[][]::new);
+	    primeIndex += BATCH_SIZE;
+	    if(candidate != null && agrees(candidate, images, first))
+		break;
+	    for(int i = 0; i < images.length; i++)
+	    {
+		if(images[i] == null)
+		    continue;
+		long p = Primes.prime(first + i);
+		ChineseRemainder.combine(residues, modulus, images[i], p);
+		modulus = modulus.multiply(BigInteger.valueOf(p));
+	    }
+	    candidate = reconstruct(residues, modulus);
+	}
+	Polynomial<BigRational> h = new Polynomial<BigRational>(BigRational.ZERO, Arrays.copyOf(candidate, n + 1));
+	if(!Irreducibility.isIrreducible(h))
+	    throw new IllegalArgumentException("Fields " + a + " and " + b + " intersect, their compositum is not "
+		    + "determined by the minimal polynomials");
+	NumberField<BigRational> field = new NumberField<>(h);
+	AlgebraicNumber<BigRational> x = field.element(
+		new Polynomial<BigRational>(BigRational.ZERO, Arrays.copyOfRange(candidate, n + 1, 2 * n + 1)));
+	AlgebraicNumber<BigRational> c = field.element(Polynomial.MONOMIAL(1, BigRational.ONE));
+	AlgebraicNumber<BigRational> y = c.sub(x.mul(field.element(Polynomial.MONOMIAL(0, new BigRational(k)))));
+	field.addSubfield(a, x);
+	field.addSubfield(b, y);
+	return field;
+    }
+
+    /**
+     * Smallest k > 0 for which h is squarefree (modulo one of the first primes)
+     */
+    private static int shift(Polynomial<BigRational> f, Polynomial<BigRational> g)
+    {
+	long n = f.degree() * g.degree();
+	// at most n(n-1)/2 values of k make two roots of h collide
+	for(int k = 1; k <= n * n + 1; k++)
+	    for(int i = 0; i < 3; i++)
+		if(image(f, g, k, Primes.prime(i)) != null)
+		    return k;
+	throw new ArithmeticException("Minimal polynomials are not squarefree");
+    }
+
+    /**
+     * Coefficients of h followed by those of a as polynomial in c modulo p
+     * @return null if p divides a denominator or h is not squarefree modulo p
+     */
+    private static long[] image(Polynomial<BigRational> f, Polynomial<BigRational> g, int k, long p)
+    {
+	long[] fp = reduce(f, p), gp = reduce(g, p);
+	if(fp == null || gp == null)
+	    return null;
+	int n = (fp.length - 1) * (gp.length - 1);
+	long[] s = powerSums(fp, p), dg = derivative(gp, p);
+	long[] zs = new long[n + 1], hs = new long[n + 1], ts = new long[n + 1];
+	// h has at most n roots, skip them
+	for(long z = 0, count = 0; count <= n; z++)
+	{
+	    // B0(y) = g(z - k*y), B1(y) = d/dt g(z - (k+t)*y) = -y*g'(z - k*y)
+	    long[] b0 = ModularArithmetic.remainder(compose(gp, z, k, p), fp, p);
+	    long r = ModularArithmetic.resultant(fp, b0, p);
+	    if(r == 0)
+		continue;
+	    long[] dgz = compose(dg, z, k, p);
+	    long[] b1 = new long[dgz.length + 1];
+	    for(int i = 0; i < dgz.length; i++)
+		b1[i + 1] = ModularArithmetic.sub(0, dgz[i], p);
+	    long[] q = ModularArithmetic.remainder(ModularArithmetic.multiply(ModularArithmetic.remainder(b1, fp, p),
+		    ModularArithmetic.invert(b0, fp, p), p), fp, p);
+	    long trace = 0;
+	    for(int i = 0; i < q.length; i++)
+		trace = ModularArithmetic.add(trace, ModularArithmetic.mul(q[i], s[i], p), p);
+	    zs[(int) count] = z;
+	    hs[(int) count] = r;
+	    ts[(int) count] = ModularArithmetic.mul(r, trace, p);
+	    count++;
+	}
+	long[] h = ModularArithmetic.interpolate(zs, hs, p);
+	long[] t = ModularArithmetic.interpolate(zs, ts, p);
+	long[] inv;
+	try
+	{
+	    inv = ModularArithmetic.invert(derivative(h, p), h, p);
+	}
+	catch(ArithmeticException e)
+	{
+	    return null;
+	}
+	long[] x = ModularArithmetic.remainder(ModularArithmetic.multiply(t, inv, p), h, p);
+	long[] image = new long[2 * n + 1];
+	System.arraycopy(h, 0, image, 0, h.length);
+	for(int i = 0; i < x.length; i++)
+	    image[n + 1 + i] = ModularArithmetic.sub(0, x[i], p);
+	return image;
+    }
+
+    /**
+     * a(z - k*y) as polynomial in y
+     */
+    private static long[] compose(long[] a, long z, int k, long p)
+    {
+	long[] r = new long[a.length];
+	long mk = ModularArithmetic.sub(0, k % p, p);
+	for(int i = a.length - 1; i >= 0; i--)
+	{
+	    // r <- r*(z - k*y) + a_i
+	    for(int j = a.length - 1 - i; j > 0; j--)
+		r[j] = ModularArithmetic.add(ModularArithmetic.mul(z, r[j], p), ModularArithmetic.mul(mk, r[j - 1], p), p);
+	    r[0] = ModularArithmetic.add(ModularArithmetic.mul(z, r[0], p), a[i], p);
+	}
+	return ModularArithmetic.trim(r);
+    }
+
+    /**
+     * Power sums s_j (j < deg f) of the roots of the monic f (Newton's
+     * identities)
+     */
+    private static long[] powerSums(long[] f, long p)
+    {
+	int m = f.length - 1;
+	long[] s = new long[m];
+	s[0] = m % p;
+	for(int j = 1; j < m; j++)
+	{
+	    long v = ModularArithmetic.mul(j, f[m - j], p);
+	    for(int i = 1; i < j; i++)
+		v = ModularArithmetic.add(v, ModularArithmetic.mul(f[m - i], s[j - i], p), p);
+	    s[j] = ModularArithmetic.sub(0, v, p);
+	}
+	return s;
+    }
+
+    private static long[] derivative(long[] a, long p)
+    {
+	if(a.length == 0)
+	    return a;
+	long[] d = new long[a.length - 1];
+	for(int i = 1; i < a.length; i++)
+	    d[i - 1] = ModularArithmetic.mul(i, a[i], p);
+	return ModularArithmetic.trim(d);
+    }
+
+    private static long[] reduce(Polynomial<BigRational> f, long p)
+    {
+	BigRational[] c = f.toArray();
+	long[] a = new long[c.length];
+	for(int i = 0; i < c.length; i++)
+	{
+	    a[i] = ModularArithmetic.reduce(c[i], p);
+	    if(a[i] < 0)
+		return null;
+	}
+	return a;
+    }
+
+    private static boolean agrees(BigRational[] candidate, long[][] images, int first)
+    {
+	for(int i = 0; i < images.length; i++)
+	{
+	    if(images[i] == null)
+		continue;
+	    long p = Primes.prime(first + i);
+	    for(int j = 0; j < candidate.length; j++)
+		if(ModularArithmetic.reduce(candidate[j], p) != images[i][j])
+		    return false;
+	}
+	return true;
+    }
+
+    private static BigRational[] reconstruct(BigInteger[] residues, BigInteger modulus)
+    {
+	BigRational[] c = new BigRational[residues.length];
+	for(int j = c.length - 1; j >= 0; j--)
+	{
+	    c[j] = ChineseRemainder.rationalReconstruction(residues[j], modulus);
+	    if(c[j] == null)
+		return null;
+	}
+	return c;
+    }
+}
@@ -0,0 +1,370 @@
+package algebraic;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import modular.ModularArithmetic;
+import modular.Primes;
+import number.BigRational;
+import polynomial.Polynomial;
+import polynomial.PolynomialDivision;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Irreducibility test over the rationals for squarefree polynomials
+ *         (Zassenhaus). The polynomial is factored modulo a few word-sized
+ *         primes (distinct-degree and Cantor-Zassenhaus splitting); a
+ *         rational factor has a degree that is a sum of factor degrees modulo
+ *         every prime, often no proper degree is left. Otherwise the factors
+ *         modulo the prime with the fewest factors are lifted by Hensel's
+ *         lemma beyond the Mignotte bound and their products are tried as
+ *         divisors over the integers.
+ */
+class Irreducibility
+{
+    private static final int PATTERN_PRIMES = 5;
+
+    /**
+     * @param h squarefree polynomial over the rationals
+     * @return true if h has no factor of degree 0 < d < deg h
+     */
+    static boolean isIrreducible(Polynomial<BigRational> h)
+    {
+	BigInteger[] f = primitive(h);
+	int n = f.length - 1;
+	if(n <= 1)
+	    return true;
+	boolean[] possible = null;
+	long[][] best = null;
+	long bestPrime = 0;
+	for(int i = 0, found = 0; found < PATTERN_PRIMES; i++)
+	{
+	    long p = Primes.prime(i);
+	    long[] fp = reduce(f, p);
+	    if(fp.length != n + 1 || ModularArithmetic.gcd(fp, derivative(fp, p), p).length > 1)
+		continue;
+	    found++;
+	    long[][] factors = factor(fp, p);
+	    boolean[] sums = degreeSums(factors, n);
+	    if(possible == null)
+		possible = sums;
+	    else
+		for(int d = 0; d <= n; d++)
+		    possible[d] &= sums[d];
+	    if(best == null || factors.length < best.length)
+	    {
+		best = factors;
+		bestPrime = p;
+	    }
+	}
+	boolean proper = false;
+	for(int d = 1; d < n; d++)
+	    proper |= possible[d];
+	return !proper || !hasFactor(f, best, bestPrime, possible);
+    }
+
+    /**
+     * Integer coefficients of h without common divisor
+     */
+    private static BigInteger[] primitive(Polynomial<BigRational> h)
+    {
+	BigRational[] c = h.toArray();
+	BigInteger lcm = BigInteger.ONE;
+	for(BigRational a : c)
+	    lcm = lcm.divide(lcm.gcd(a.denominator())).multiply(a.denominator());
+	BigInteger[] f = new BigInteger[c.length];
+	BigInteger content = BigInteger.ZERO;
+	for(int i = 0; i < c.length; i++)
+	{
+	    f[i] = c[i].numerator().multiply(lcm.divide(c[i].denominator()));
+	    content = content.gcd(f[i]);
+	}
+	for(int i = 0; i < c.length; i++)
+	    f[i] = f[i].divide(content);
+	return f;
+    }
+
+    /**
+     * Irreducible monic factors of the squarefree f modulo p
+     */
+    private static long[][] factor(long[] f, long p)
+    {
+	List<long[]> factors = new ArrayList<>();
+	Random random = new Random(p);
+	f = ModularArithmetic.monic(f, p);
+	long[] x = { 0, 1 };
+	long[] xq = x; // x^(p^d) mod f
+	for(int d = 1; 2 * d <= f.length - 1; d++)
+	{
+	    xq = powMod(xq, BigInteger.valueOf(p), f, p);
+	    // product of the factors of degree d
+	    long[] g = ModularArithmetic.gcd(f, subtract(xq, x, p), p);
+	    if(g.length > 1)
+	    {
+		split(g, d, p, random, factors);
+		f = quotient(f, g, p);
+		xq = ModularArithmetic.remainder(xq, f, p);
+	    }
+	}
+	if(f.length > 1)
+	    factors.add(f);
+	return factors.toArray(new long[0][]);
+    }
+
+    /**
+     * Equal-degree splitting of the product g of factors of degree d
+     */
+    private static void split(long[] g, int d, long p, Random random, List<long[]> factors)
+    {
+	int n = g.length - 1;
+	if(n == d)
+	{
+	    factors.add(g);
+	    return;
+	}
+	BigInteger e = BigInteger.valueOf(p).pow(d).subtract(BigInteger.ONE).shiftRight(1);
+	while(true)
+	{
+	    long[] a = new long[n];
+	    for(int i = 0; i < n; i++)
+		a[i] = Math.floorMod(random.nextLong(), p);
+	    a = ModularArithmetic.trim(a);
+	    if(a.length < 2)
+		continue;
+	    long[] b = subtract(powMod(a, e, g, p), new long[] { 1 }, p);
+	    long[] u = ModularArithmetic.gcd(g, b, p);
+	    if(u.length > 1 && u.length < g.length)
+	    {
+		split(u, d, p, random, factors);
+		split(quotient(g, u, p), d, p, random, factors);
+		return;
+	    }
+	}
+    }
+
+    /**
+     * Degrees that are sums of degrees of the factors
+     */
+    private static boolean[] degreeSums(long[][] factors, int n)
+    {
+	boolean[] sums = new boolean[n + 1];
+	sums[0] = true;
+	for(long[] u : factors)
+	    for(int d = n; d >= u.length - 1; d--)
+		sums[d] |= sums[d - (u.length - 1)];
+	return sums;
+    }
+
+    /**
+     * Tries the products of the lifted factors modulo p as divisors of f
+     */
+    private static boolean hasFactor(BigInteger[] f, long[][] u, long p, boolean[] possible)
+    {
+	int n = f.length - 1, r = u.length;
+	BigInteger lc = f[n];
+	// lc times a factor of f has coefficients below |lc| 2^n (n+1) max|f_i|
+	BigInteger max = BigInteger.ZERO;
+	for(BigInteger c : f)
+	    max = max.max(c.abs());
+	BigInteger bound = lc.abs().multiply(max).multiply(BigInteger.valueOf(n + 1)).shiftLeft(n + 1);
+	BigInteger bp = BigInteger.valueOf(p), m = bp;
+	int e = 1;
+	while(m.compareTo(bound) <= 0)
+	{
+	    m = m.multiply(bp);
+	    e++;
+	}
+	BigInteger lcInv = lc.modInverse(m);
+	BigInteger[] rest = new BigInteger[n + 1];
+	for(int i = 0; i <= n; i++)
+	    rest[i] = f[i].multiply(lcInv).mod(m);
+	BigInteger[][] lifted = new BigInteger[r][];
+	for(int i = 0; i < r - 1; i++)
+	{
+	    long[] w = { 1 };
+	    for(int j = i + 1; j < r; j++)
+		w = ModularArithmetic.multiply(w, u[j], p);
+	    BigInteger[][] uw = lift(rest, u[i], w, p, e, m);
+	    lifted[i] = uw[0];
+	    rest = uw[1];
+	}
+	lifted[r - 1] = rest;
+	Polynomial<BigRational> fq = rational(f);
+	// subsets of at most r/2 factors, the complement of a factor is a factor
+	int[] s = new int[r];
+	for(int size = 1; 2 * size <= r; size++)
+	{
+	    for(int i = 0; i < size; i++)
+		s[i] = i;
+	    while(true)
+	    {
+		int degree = 0;
+		for(int i = 0; i < size; i++)
+		    degree += u[s[i]].length - 1;
+		if(possible[degree])
+		{
+		    BigInteger[] g = { lc.mod(m) };
+		    for(int i = 0; i < size; i++)
+			g = multiply(g, lifted[s[i]], m);
+		    if(divides(symmetric(g, m), fq))
+			return true;
+		}
+		int i = size - 1;
+		while(i >= 0 && s[i] == r - size + i)
+		    i--;
+		if(i < 0)
+		    break;
+		s[i]++;
+		for(int j = i + 1; j < size; j++)
+		    s[j] = s[j - 1] + 1;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Lifts the monic factorization f = u*w mod p to monic factors modulo m =
+     * p^e (linear Hensel lifting)
+     */
+    private static BigInteger[][] lift(BigInteger[] f, long[] u0, long[] w0, long p, int e, BigInteger m)
+    {
+	// s*u + t*w = 1 mod p
+	long[] s = ModularArithmetic.invert(u0, w0, p);
+	long[] t = quotient(subtract(new long[] { 1 }, ModularArithmetic.multiply(s, u0, p), p), w0, p);
+	BigInteger[] u = big(u0), w = big(w0);
+	BigInteger bp = BigInteger.valueOf(p), pk = bp;
+	for(int k = 1; k < e; k++)
+	{
+	    // f - u*w = pk*d, find sigma*u + tau*w = d mod p
+	    BigInteger[] uw = multiply(u, w, m);
+	    long[] d = new long[f.length];
+	    for(int i = 0; i < f.length; i++)
+	    {
+		BigInteger c = i < uw.length ? f[i].subtract(uw[i]) : f[i];
+		d[i] = c.mod(m).divide(pk).mod(bp).longValue();
+	    }
+	    d = ModularArithmetic.trim(d);
+	    long[] sigma = ModularArithmetic.remainder(ModularArithmetic.multiply(s, d, p), w0, p);
+	    long[] tau = ModularArithmetic.remainder(ModularArithmetic.multiply(t, d, p), u0, p);
+	    for(int i = 0; i < tau.length; i++)
+		u[i] = u[i].add(pk.multiply(BigInteger.valueOf(tau[i]))).mod(m);
+	    for(int i = 0; i < sigma.length; i++)
+		w[i] = w[i].add(pk.multiply(BigInteger.valueOf(sigma[i]))).mod(m);
+	    pk = pk.multiply(bp);
+	}
+	return new BigInteger[][] { u, w };
+    }
+
+    private static boolean divides(BigInteger[] g, Polynomial<BigRational> f)
+    {
+	return PolynomialDivision.polynomialDivision(f, rational(g)).getSecond().isZero();
+    }
+
+    private static Polynomial<BigRational> rational(BigInteger[] a)
+    {
+	BigRational[] c = new BigRational[a.length];
+	for(int i = 0; i < a.length; i++)
+	    c[i] = new BigRational(a[i], BigInteger.ONE);
+	return new Polynomial<BigRational>(BigRational.ZERO, c);
+    }
+
+    /**
+     * Residues in (-m/2, m/2]
+     */
+    private static BigInteger[] symmetric(BigInteger[] a, BigInteger m)
+    {
+	BigInteger half = m.shiftRight(1);
+	BigInteger[] r = new BigInteger[a.length];
+	for(int i = 0; i < a.length; i++)
+	    r[i] = a[i].compareTo(half) > 0 ? a[i].subtract(m) : a[i];
+	return r;
+    }
+
+    private static BigInteger[] multiply(BigInteger[] a, BigInteger[] b, BigInteger m)
+    {
+	BigInteger[] c = new BigInteger[a.length + b.length - 1];
+	Arrays.fill(c, BigInteger.ZERO);
+	for(int i = 0; i < a.length; i++)
+	    for(int j = 0; j < b.length; j++)
+		c[i + j] = c[i + j].add(a[i].multiply(b[j]));
+	for(int i = 0; i < c.length; i++)
+	    c[i] = c[i].mod(m);
+	return c;
+    }
+
+    private static BigInteger[] big(long[] a)
+    {
+	BigInteger[] r = new BigInteger[a.length];
+	for(int i = 0; i < a.length; i++)
+	    r[i] = BigInteger.valueOf(a[i]);
+	return r;
+    }
+
+    private static long[] reduce(BigInteger[] f, long p)
+    {
+	BigInteger bp = BigInteger.valueOf(p);
+	long[] a = new long[f.length];
+	for(int i = 0; i < f.length; i++)
+	    a[i] = f[i].mod(bp).longValue();
+	return ModularArithmetic.trim(a);
+    }
+
+    private static long[] derivative(long[] a, long p)
+    {
+	long[] d = new long[Math.max(0, a.length - 1)];
+	for(int i = 1; i < a.length; i++)
+	    d[i - 1] = ModularArithmetic.mul(i % p, a[i], p);
+	return ModularArithmetic.trim(d);
+    }
+
+    private static long[] subtract(long[] a, long[] b, long p)
+    {
+	long[] r = Arrays.copyOf(a, Math.max(a.length, b.length));
+	for(int i = 0; i < b.length; i++)
+	    r[i] = ModularArithmetic.sub(r[i], b[i], p);
+	return ModularArithmetic.trim(r);
+    }
+
+    /**
+     * a^e mod f over Z/pZ
+     */
+    private static long[] powMod(long[] a, BigInteger e, long[] f, long p)
+    {
+	long[] r = { 1 };
+	a = ModularArithmetic.remainder(a, f, p);
+	for(int i = e.bitLength() - 1; i >= 0; i--)
+	{
+	    r = ModularArithmetic.remainder(ModularArithmetic.multiply(r, r, p), f, p);
+	    if(e.testBit(i))
+		r = ModularArithmetic.remainder(ModularArithmetic.multiply(r, a, p), f, p);
+	}
+	return r;
+    }
+
+    /**
+     * Quotient of the exact division of a by b over Z/pZ
+     */
+    private static long[] quotient(long[] a, long[] b, long p)
+    {
+	int db = b.length - 1;
+	if(a.length - 1 < db)
+	    return new long[0];
+	long[] r = a.clone(), q = new long[a.length - db];
+	long lcInv = ModularArithmetic.invert(b[db], p);
+	for(int k = r.length - 1; k >= db; k--)
+	{
+	    long c = ModularArithmetic.mul(r[k], lcInv, p);
+	    q[k - db] = c;
+	    if(c == 0)
+		continue;
+	    for(int j = 0; j <= db; j++)
+		r[k - db + j] = ModularArithmetic.sub(r[k - db + j], ModularArithmetic.mul(c, b[j], p), p);
+	}
+	return ModularArithmetic.trim(q);
+    }
+}
@@ -0,0 +1,289 @@
+package algebraic;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.WeakHashMap;
+
+import interfaces.Accumulator;
+import interfaces.Field;
+import interfaces.RingContext;
+import interfaces.RingContext.Capability;
+import misc.Budget;
+import misc.Pair;
+import number.BigRational;
+import polynomial.Polynomial;
+import polynomial.PolynomialDivision;
+import polynomial.PolynomialMultiplication;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         The extension F[x]/(minPoly), shared by all its
+ *         {@link AlgebraicNumber}s. Elements are dense coefficient vectors of
+ *         length d = deg(minPoly). The table of x^k mod minPoly for d <= k <
+ *         2d-1 reduces a product of two vectors with d^2 multiply-adds and no
+ *         polynomial division. A field knows the fields embedded into it
+ *         (the factors of a {@link Compositum}), numbers of such a subfield
+ *         are mapped into it by {@link #embed(AlgebraicNumber)}.
+ */
+public class NumberField<F extends Field<F>>
+{
+    private static final WeakHashMap<Polynomial<?>, WeakReference<NumberField<?>>> FIELDS = new WeakHashMap<>();
+
+    private final Polynomial<F> minPoly;
+    private final int degree;
+    private final F obj;
+    private final F[][] table; // table[k] = x^(d+k) mod minPoly
+    private final RingContext<AlgebraicNumber<F>> context;
+    // subfields with the image of their generator x
+    private final List<Pair<NumberField<F>, AlgebraicNumber<F>>> subfields = new ArrayList<>();
+    // known composita with other fields
+    private final List<Pair<NumberField<F>, NumberField<F>>> composita = new ArrayList<>();
+
+    public NumberField(Polynomial<F> minPoly)
+    {
+	if(minPoly.degree() < 1)
+	    throw new IllegalArgumentException("Minimal polynomial must not be constant");
+	this.minPoly = Polynomial.monic(minPoly);
+	this.obj = minPoly.obj;
+	this.degree = (int) minPoly.degree();
+	this.table = reductionTable();
+	this.context = new RingContext<>(element(Polynomial.ZERO(obj)), element(Polynomial.ONE(obj)),
+		element(Polynomial.NONE(obj)));
+    }
+
+    /**
+     * The shared field of the minimal polynomial (created on first use, kept
+     * as long as it is used)
+     */
+    @SuppressWarnings("unchecked")
+    public static <F extends Field<F>> NumberField<F> of(Polynomial<F> minPoly)
+    {
+	Polynomial<F> m = Polynomial.monic(minPoly);
+	synchronized(FIELDS)
+	{
+	    WeakReference<NumberField<?>> ref = FIELDS.get(m);
+	    NumberField<F> field = ref == null ? null : (NumberField<F>) ref.get();
+	    if(field == null)
+	    {
+		field = new NumberField<F>(m);
+		FIELDS.put(field.minPoly, new WeakReference<>(field));
+	    }
+	    return field;
+	}
+    }
+
+    @SuppressWarnings("unchecked")
+    private F[][] reductionTable()
+    {
+	int d = degree;
+	F[][] t = (F[][]) Array.newInstance(obj.getClass(), Math.max(0, d - 1), 0);
+	if(d < 2)
+	    return t;
+	// x^d = -(m_0 + m_1 x + ... + m_(d-1) x^(d-1))
+	t[0] = Polynomial.newArray(obj, d);
+	for(int i = 0; i < d; i++)
+	    t[0][i] = minPoly.getCoef(i).negate();
+	for(int k = 1; k < d - 1; k++)
+	{
+	    // x^(d+k) = x * x^(d+k-1), the top coefficient wraps around with x^d
+	    F[] prev = t[k - 1], row = Polynomial.newArray(obj, d);
+	    F top = prev[d - 1];
+	    for(int i = 0; i < d; i++)
+	    {
+		F c = i == 0 ? obj.ZERO() : prev[i - 1];
+		row[i] = top.isZero() ? c : c.add(top.mul(t[0][i]));
+	    }
+	    t[k] = row;
+	}
+	return t;
+    }
+
+    public Polynomial<F> getMinimalPolynomial()
+    {
+	return minPoly;
+    }
+
+    public int degree()
+    {
+	return degree;
+    }
+
+    public RingContext<AlgebraicNumber<F>> context()
+    {
+	return context;
+    }
+
+    /**
+     * The class of the polynomial p in this field
+     */
+    public AlgebraicNumber<F> element(Polynomial<F> p)
+    {
+	return new AlgebraicNumber<F>(this, vector(p));
+    }
+
+    /**
+     * Dense representative of p mod minPoly
+     */
+    F[] vector(Polynomial<F> p)
+    {
+	if(p.degree() >= 2 * degree - 1)
+	    p = PolynomialDivision.polynomialDivision(p, minPoly).getSecond();
+	F[] c = p.toArray();
+	if(c.length > degree)
+	    return reduce(c);
+	F[] v = Polynomial.newArray(obj, degree);
+	for(int i = 0; i < degree; i++)
+	    v[i] = i < c.length ? c[i] : obj.ZERO();
+	return v;
+    }
+
+    /**
+     * Product of two elements (vectors of length d)
+     */
+    F[] multiply(F[] a, F[] b)
+    {
+	return reduce(PolynomialMultiplication.multiply(a, b, obj));
+    }
+
+    /**
+     * Reduces a vector of length at most 2d-1 modulo minPoly
+     */
+    F[] reduce(F[] c)
+    {
+	Budget.charge((long) degree * c.length);
+	F[] r = Polynomial.newArray(obj, degree);
+	for(int i = 0; i < degree; i++)
+	{
+	    Accumulator<F> sum = obj.accumulator();
+	    if(i < c.length)
+		sum.add(c[i]);
+	    for(int k = degree; k < c.length; k++)
+		if(!c[k].isZero())
+		    sum.addProduct(c[k], table[k - degree][i]);
+	    r[i] = sum.result();
+	}
+	return r;
+    }
+
+    /**
+     * @return true if the minimal polynomials agree
+     */
+    public boolean isSame(NumberField<F> b)
+    {
+	return this == b || minPoly.equals(b.minPoly);
+    }
+
+    /**
+     * @return true if b is this field or a known subfield
+     */
+    public synchronized boolean contains(NumberField<F> b)
+    {
+	return isSame(b) || generator(b) != null;
+    }
+
+    private synchronized AlgebraicNumber<F> generator(NumberField<F> b)
+    {
+	for(Pair<NumberField<F>, AlgebraicNumber<F>> s : subfields)
+	    if(s.getFirst().isSame(b))
+		return s.getSecond();
+	return null;
+    }
+
+    /**
+     * Registers b as a subfield whose generator x maps to g, and with it all
+     * subfields of b
+     */
+    synchronized void addSubfield(NumberField<F> b, AlgebraicNumber<F> g)
+    {
+	if(contains(b))
+	    return;
+	subfields.add(new Pair<>(b, g));
+	List<Pair<NumberField<F>, AlgebraicNumber<F>>> sub;
+	synchronized(b)
+	{
+	    sub = new ArrayList<>(b.subfields);
+	}
+	for(Pair<NumberField<F>, AlgebraicNumber<F>> s : sub)
+	    addSubfield(s.getFirst(), substitute(s.getSecond().coefs, g));
+    }
+
+    /**
+     * Image of a number of this field or of a subfield
+     * @throws IllegalArgumentException if the field of a is not contained in
+     *         this field
+     */
+    public AlgebraicNumber<F> embed(AlgebraicNumber<F> a)
+    {
+	if(a.field == this)
+	    return a;
+	if(isSame(a.field))
+	    return new AlgebraicNumber<F>(this, a.coefs);
+	AlgebraicNumber<F> g = generator(a.field);
+	if(g == null)
+	    throw new IllegalArgumentException("Different Extensions");
+	return substitute(a.coefs, g);
+    }
+
+    /**
+     * c(g) by Horner's rule
+     */
+    private AlgebraicNumber<F> substitute(F[] c, AlgebraicNumber<F> g)
+    {
+	F[] v = Polynomial.newArray(obj, degree);
+	for(int i = 0; i < degree; i++)
+	    v[i] = obj.ZERO();
+	AlgebraicNumber<F> r = new AlgebraicNumber<F>(this, v);
+	for(int i = c.length - 1; i >= 0; i--)
+	{
+	    F[] t = multiply(r.coefs, g.coefs);
+	    t[0] = t[0].add(c[i]);
+	    r = new AlgebraicNumber<F>(this, t);
+	}
+	return r;
+    }
+
+    /**
+     * Smallest known field containing this field and b: one of them if it
+     * contains the other, otherwise their compositum (over the rationals
+     * only), which is computed once per pair of fields
+     * @throws IllegalArgumentException if the compositum is not available or
+     *         the fields intersect and neither is a known subfield of the
+     *         other
+     */
+    @SuppressWarnings("unchecked")
+    public NumberField<F> join(NumberField<F> b)
+    {
+	if(contains(b))
+	    return this;
+	if(b.contains(this))
+	    return b;
+	synchronized(this)
+	{
+	    for(Pair<NumberField<F>, NumberField<F>> c : composita)
+		if(c.getFirst().isSame(b))
+		    return c.getSecond();
+	}
+	if(!obj.context().has(Capability.MODULAR_IMAGE))
+	    throw new IllegalArgumentException("Different Extensions");
+	NumberField<F> k = (NumberField<F>) (NumberField<?>) Compositum.of((NumberField<BigRational>) (NumberField<?>) this,
+		(NumberField<BigRational>) (NumberField<?>) b);
+	synchronized(this)
+	{
+	    composita.add(new Pair<>(b, k));
+	}
+	synchronized(b)
+	{
+	    b.composita.add(new Pair<>(this, k));
+	}
+	return k;
+    }
+
+    public String toString()
+    {
+	return "F[x]/(" + minPoly + ")";
+    }
+}
@@ -0,0 +1,15 @@
+package interfaces;
+
+/**
+ * 
+ * @author KhAKhA
+ *
+ *         Running sum of products a*b. Implementations may keep an unreduced
+ *         internal form and normalize only in {@link #result()}.
+ */
+public interface Accumulator<F>
+{
+    public void add(F a);
+    public void addProduct(F a, F b);
+    public F result();
+}
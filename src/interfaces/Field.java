@@ -5,4 +5,31 @@ public interface Field<F extends Field<F>> extends IntegralDomain<F>
     public F div(F b);
     public F invert();
     public F pow(long p);
+
+    /**
+     * Inverses of all entries of a by one inversion and 3(n-1)
+     * multiplications (Montgomery's simultaneous inversion)
+     * @throws ArithmeticException if an entry is zero
+     */
+    public static <F extends Field<F>> F[] invertAll(F[] a)
+    {
+	F[] r = a.clone();
+	if(a.length == 0)
+	    return r;
+	// r[i] = a[0] * ... * a[i]
+	for(int i = 0; i < a.length; i++)
+	{
+	    if(a[i].isZero())
+		throw new ArithmeticException("Zero is not invertible");
+	    r[i] = i == 0 ? a[0] : r[i - 1].mul(a[i]);
+	}
+	F inv = r[a.length - 1].invert();
+	for(int i = a.length - 1; i > 0; i--)
+	{
+	    r[i] = inv.mul(r[i - 1]);
+	    inv = inv.mul(a[i]);
+	}
+	r[0] = inv;
+	return r;
+    }
 }
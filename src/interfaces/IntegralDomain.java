@@ -12,4 +12,57 @@ public interface IntegralDomain<F extends IntegralDomain<F>>
     public boolean isZero();
     public boolean isOne();
     public boolean equals(Object b);
+
+    /**
+     * Constants and capabilities of the ring. The default creates a new
+     * context on each call, the implementations in this project return a
+     * shared one.
+     */
+    public default RingContext<F> context()
+    {
+	return new RingContext<>(ZERO(), ONE(), NONE());
+    }
+
+    /**
+     * Fresh accumulator for sums of products, starting at zero. The default
+     * adds one product at a time.
+     */
+    public default Accumulator<F> accumulator()
+    {
+	F zero = ZERO();
+	return new Accumulator<F>()
+	{
+	    private F sum = zero;
+
+	    @Override
+	    public void add(F a)
+	    {
+		sum = sum.add(a);
+	    }
+
+	    @Override
+	    public void addProduct(F a, F b)
+	    {
+		sum = sum.add(a.mul(b));
+	    }
+
+	    @Override
+	    public F result()
+	    {
+		return sum;
+	    }
+	};
+    }
+
+    /**
+     * Dot product of a and b (up to the shorter length)
+     */
+    public default F dot(F[] a, F[] b)
+    {
+	Accumulator<F> acc = accumulator();
+	int n = Math.min(a.length, b.length);
+	for(int i = 0; i < n; i++)
+	    acc.addProduct(a[i], b[i]);
+	return acc.result();
+    }
 }
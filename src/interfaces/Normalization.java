@@ -0,0 +1,42 @@
+package interfaces;
+
+/**
+ * 
+ * @author KhAKhA
+ *
+ *         Gcd and canonical forms in a domain, used to keep fractions over the
+ *         domain reduced. Available from {@link RingContext#normalization()}
+ *         for domains that have a gcd.
+ */
+public interface Normalization<D extends IntegralDomain<D>>
+{
+    /**
+     * When fractions are reduced
+     */
+    public enum Mode
+    {
+	/** after every operation */
+	EAGER,
+	/** when the size of numerator and denominator passes a threshold */
+	LAZY,
+	/** never */
+	NEVER
+    }
+
+    public D gcd(D a, D b);
+
+    /**
+     * Quotient a/b if b divides a
+     */
+    public D divide(D a, D b);
+
+    /**
+     * Unit u such that a/u is the canonical associate of a (e.g. monic)
+     */
+    public D unit(D a);
+
+    /**
+     * Size measure for the lazy mode (e.g. the number of coefficients)
+     */
+    public long size(D a);
+}
@@ -0,0 +1,106 @@
+package interfaces;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Shared description of a ring: canonical ZERO, ONE and NONE created
+ *         once, the capabilities of its elements and the contexts of
+ *         structures built over it (polynomials, series, fractions), which are
+ *         created on first use and then reused.
+ * @param <F>
+ */
+public class RingContext<F extends IntegralDomain<F>>
+{
+    public enum Capability
+    {
+	/**
+	 * Elements are {@link modular.ModularInteger}s, dense products can use
+	 * the primitive NTT kernel
+	 */
+	FAST_MULTIPLY,
+	/**
+	 * {@link IntegralDomain#accumulator()} is cheaper than adding the
+	 * products one by one
+	 */
+	DOT_PRODUCT,
+	/**
+	 * Elements are {@link number.BigRational}s, which have images in
+	 * {@link modular.PrimeField}s for almost all primes
+	 */
+	MODULAR_IMAGE
+    }
+
+    private final F zero, one, none;
+    private final Set<Capability> capabilities;
+    private final Normalization<F> normalization;
+    private final ConcurrentHashMap<Object, RingContext<?>> derived = new ConcurrentHashMap<>();
+
+    public RingContext(F zero, F one, F none, Capability... capabilities)
+    {
+	this(zero, one, none, null, capabilities);
+    }
+
+    public RingContext(F zero, F one, F none, Normalization<F> normalization, Capability... capabilities)
+    {
+	this.normalization = normalization;
+	this.zero = zero;
+	this.one = one;
+	this.none = none;
+	this.capabilities = EnumSet.noneOf(Capability.class);
+	for(Capability c : capabilities)
+	    this.capabilities.add(c);
+    }
+
+    public F ZERO()
+    {
+	return zero;
+    }
+
+    public F ONE()
+    {
+	return one;
+    }
+
+    public F NONE()
+    {
+	return none;
+    }
+
+    /**
+     * Gcd and canonical forms, null if the ring has none
+     */
+    public Normalization<F> normalization()
+    {
+	return normalization;
+    }
+
+    public boolean has(Capability c)
+    {
+	return capabilities.contains(c);
+    }
+
+    /**
+     * Context of the structure identified by key (e.g. the class
+     * <tt>Polynomial<tt>) over this ring, created by the supplier on first use
+     */
+    @SuppressWarnings("unchecked")
+    public <G extends IntegralDomain<G>> RingContext<G> derived(Object key, Supplier<RingContext<G>> s)
+    {
+	// no computeIfAbsent: the supplier may itself ask for derived contexts
+	RingContext<?> c = derived.get(key);
+	if(c == null)
+	{
+	    RingContext<?> d = s.get();
+	    c = derived.putIfAbsent(key, d);
+	    if(c == null)
+		c = d;
+	}
+	return (RingContext<G>) c;
+    }
+}
@@ -0,0 +1,73 @@
+package main;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+import number.BigRational;
+import polynomial.Polynomial;
+import series.PowerSeries;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Compares the BigInteger-only representation of BigRational with the
+ *         long fast path on PowerSeries.mul, PowerSeries.invert and
+ *         Polynomial.mul workloads with small coefficients.
+ */
+public class BigRationalBenchmark
+{
+    public static void main(String[] args)
+    {
+	run("PowerSeries.mul, 400 coefficients", () -> {
+	    PowerSeries<BigRational> a = new PowerSeries<>(n -> new BigRational(n % 2 == 0 ? 1 : -1, (int) (n % 7 + 1)),
+		    BigRational.ZERO);
+	    PowerSeries<BigRational> b = new PowerSeries<>(n -> new BigRational((int) (n % 5 - 2), 3), BigRational.ZERO);
+	    return a.mul(b).getCoefs(400)[399];
+	});
+	run("PowerSeries.invert, 1/(1-x-x^2), 90 coefficients", () -> {
+	    PowerSeries<BigRational> a = new PowerSeries<>(n -> n == 0 ? BigRational.ONE
+		    : n <= 2 ? BigRational.NONE : BigRational.ZERO, BigRational.ZERO);
+	    return a.invert().getCoefs(90)[89];
+	});
+	run("Polynomial.mul, degree 300", () -> {
+	    Random random = new Random(1);
+	    BigRational[] c1 = new BigRational[301], c2 = new BigRational[301];
+	    for(int i = 0; i <= 300; i++)
+	    {
+		c1[i] = new BigRational(random.nextInt(201) - 100, random.nextInt(6) + 1);
+		c2[i] = new BigRational(random.nextInt(201) - 100, random.nextInt(6) + 1);
+	    }
+	    Polynomial<BigRational> p = new Polynomial<>(BigRational.ZERO, c1);
+	    Polynomial<BigRational> q = new Polynomial<>(BigRational.ZERO, c2);
+	    return p.mul(q).getLeadingCoef();
+	});
+    }
+
+    private static void run(String name, Supplier<BigRational> workload)
+    {
+	double big = time(workload, false);
+	double small = time(workload, true);
+	System.out.printf("%-50s BigInteger %8.2f ms   long %8.2f ms   speedup %.1fx%n", name, big, small, big / small);
+    }
+
+    private static double time(Supplier<BigRational> workload, boolean fastPath)
+    {
+	boolean old = BigRational.LONG_FAST_PATH;
+	BigRational.LONG_FAST_PATH = fastPath;
+	try
+	{
+	    for(int i = 0; i < 3; i++)
+		workload.get();
+	    int runs = 5;
+	    long start = System.nanoTime();
+	    for(int i = 0; i < runs; i++)
+		workload.get();
+	    return (System.nanoTime() - start) / 1e6 / runs;
+	}
+	finally
+	{
+	    BigRational.LONG_FAST_PATH = old;
+	}
+    }
+}
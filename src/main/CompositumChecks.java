@@ -0,0 +1,83 @@
+package main;
+
+import algebraic.AlgebraicNumber;
+import algebraic.NumberField;
+import number.BigRational;
+import polynomial.Polynomial;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Checks of arithmetic with numbers of different extensions: disjoint
+ *         fields meet in their compositum, a known subfield is embedded into
+ *         the larger field and intersecting fields are rejected instead of
+ *         computing in a product of fields. Exits with status 1 on failure.
+ */
+public class CompositumChecks
+{
+    private static int failures = 0;
+
+    public static void main(String[] args)
+    {
+	AlgebraicNumber<BigRational> sqrt2 = generator(-2, 0, 1), sqrt3 = generator(-3, 0, 1);
+	AlgebraicNumber<BigRational> two = constant(sqrt2, 2), five = constant(sqrt2, 5);
+	// (sqrt2 + sqrt3)^2 = 5 + 2 sqrt2 sqrt3
+	AlgebraicNumber<BigRational> s = sqrt2.add(sqrt3);
+	check("disjoint fields", s.mul(s).sub(five).sub(two.mul(sqrt2).mul(sqrt3)).isZero()
+		&& s.getField().degree() == 4);
+	// the compositum contains Q(sqrt2), sqrt2 is embedded as itself
+	NumberField<BigRational> k = s.getField();
+	check("known subfield", k.join(sqrt2.getField()) == k
+		&& k.embed(sqrt2).mul(sqrt2).sub(two).isZero() && s.sub(sqrt2).sub(sqrt3).isZero());
+	// Q(sqrt8) = Q(sqrt2): 2 sqrt2 - sqrt8 is 0 or 4 sqrt2 depending on the embedding
+	AlgebraicNumber<BigRational> sqrt8 = generator(-8, 0, 1);
+	check("intersecting fields", rejects(() -> two.mul(sqrt2).sub(sqrt8)) && rejects(() -> sqrt8.mul(sqrt2)));
+	// Q(sqrt2) is contained in Q(2^(1/4)) as +-x^2, but not known to be
+	AlgebraicNumber<BigRational> root4 = generator(-2, 0, 0, 0, 1);
+	check("unknown subfield", rejects(() -> root4.mul(root4).sub(sqrt2)));
+	if(failures > 0)
+	{
+	    System.out.println(failures + " check(s) failed");
+	    System.exit(1);
+	}
+	System.out.println("All checks passed");
+    }
+
+    /**
+     * Generator x of Q[x]/(c_0 + c_1 x + ...)
+     */
+    private static AlgebraicNumber<BigRational> generator(int... c)
+    {
+	BigRational[] m = new BigRational[c.length];
+	for(int i = 0; i < c.length; i++)
+	    m[i] = new BigRational(c[i]);
+	return new AlgebraicNumber<BigRational>(Polynomial.MONOMIAL(1, BigRational.ONE),
+		new Polynomial<BigRational>(BigRational.ZERO, m));
+    }
+
+    private static AlgebraicNumber<BigRational> constant(AlgebraicNumber<BigRational> a, int c)
+    {
+	return new AlgebraicNumber<BigRational>(Polynomial.MONOMIAL(0, new BigRational(c)), a.getField());
+    }
+
+    private static boolean rejects(Runnable work)
+    {
+	try
+	{
+	    work.run();
+	    return false;
+	}
+	catch(IllegalArgumentException e)
+	{
+	    return true;
+	}
+    }
+
+    private static void check(String name, boolean ok)
+    {
+	if(!ok)
+	    failures++;
+	System.out.printf("%-22s %s%n", name, ok ? "ok" : "FAILED");
+    }
+}
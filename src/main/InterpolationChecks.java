@@ -0,0 +1,108 @@
+package main;
+
+import java.util.Random;
+
+import interfaces.Field;
+import modular.ModularInteger;
+import modular.PrimeField;
+import number.BigRational;
+import polynomial.MultipointEvaluation;
+import polynomial.Polynomial;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Checks of multipoint evaluation and interpolation: interpolating
+ *         the values of a polynomial of degree < n at n points gives the
+ *         polynomial back and evaluating the interpolation polynomial gives
+ *         the values back, below and above the leaf size of the trees, in
+ *         sequential and parallel mode. Repeated points are rejected. Exits
+ *         with status 1 on failure.
+ */
+public class InterpolationChecks
+{
+    private static int failures = 0;
+
+    public static void main(String[] args)
+    {
+	PrimeField p = PrimeField.of(1000003);
+	Random r = new Random(1);
+	for(int n : new int[] { 1, 2, MultipointEvaluation.LEAF_SIZE, MultipointEvaluation.LEAF_SIZE + 1, 100, 300 })
+	{
+	    ModularInteger[] c = new ModularInteger[n], xs = new ModularInteger[n];
+	    for(int i = 0; i < n; i++)
+	    {
+		c[i] = p.element(r.nextInt(1000003));
+		xs[i] = p.element(3 * i + 1);
+	    }
+	    check("mod p, " + n + " points", roundTrip(new Polynomial<ModularInteger>(p.ZERO(), c), xs, false));
+	    check("mod p, " + n + " points, parallel", roundTrip(new Polynomial<ModularInteger>(p.ZERO(), c), xs, true));
+	}
+	for(int n : new int[] { 5, 40 })
+	{
+	    BigRational[] c = new BigRational[n], xs = new BigRational[n];
+	    for(int i = 0; i < n; i++)
+	    {
+		c[i] = new BigRational(r.nextInt(21) - 10, r.nextInt(5) + 1);
+		xs[i] = new BigRational(i - n / 2, 3);
+	    }
+	    check("rationals, " + n + " points", roundTrip(new Polynomial<BigRational>(BigRational.ZERO, c), xs, false));
+	}
+	ModularInteger[] xs = new ModularInteger[40], ys = new ModularInteger[40];
+	for(int i = 0; i < xs.length; i++)
+	{
+	    xs[i] = p.element(i % 39);
+	    ys[i] = p.ONE();
+	}
+	check("repeated points", rejects(() -> MultipointEvaluation.interpolate(xs, ys)));
+	if(failures > 0)
+	{
+	    System.out.println(failures + " check(s) failed");
+	    System.exit(1);
+	}
+	System.out.println("All checks passed");
+    }
+
+    /**
+     * Interpolates f at the points and evaluates the result there again
+     */
+    private static <F extends Field<F>> boolean roundTrip(Polynomial<F> f, F[] xs, boolean parallel)
+    {
+	F[] ys = MultipointEvaluation.evaluate(f, xs, parallel);
+	for(int i = 0; i < xs.length; i++)
+	    if(!ys[i].equals(f.evaluate(xs[i])))
+		return false;
+	Polynomial<F> g = MultipointEvaluation.interpolate(xs, ys, parallel);
+	for(long i = 0; i < xs.length; i++)
+	    if(!g.getCoef(i).equals(f.getCoef(i)))
+		return false;
+	if(g.degree() >= xs.length)
+	    return false;
+	F[] zs = MultipointEvaluation.evaluate(g, xs, parallel);
+	for(int i = 0; i < xs.length; i++)
+	    if(!zs[i].equals(ys[i]))
+		return false;
+	return true;
+    }
+
+    private static boolean rejects(Runnable work)
+    {
+	try
+	{
+	    work.run();
+	    return false;
+	}
+	catch(IllegalArgumentException e)
+	{
+	    return true;
+	}
+    }
+
+    private static void check(String name, boolean ok)
+    {
+	if(!ok)
+	    failures++;
+	System.out.printf("%-34s %s%n", name, ok ? "ok" : "FAILED");
+    }
+}
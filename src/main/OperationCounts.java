@@ -0,0 +1,106 @@
+package main;
+
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import misc.CountingField;
+import misc.CountingField.Counts;
+import number.BigRational;
+import polynomial.Polynomial;
+import polynomial.PolynomialDivision;
+import polynomial.PolynomialGCD;
+import series.ExtendedPowerSeries;
+import series.PowerSeries;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Complexity checks by operation counts: each workload is run at
+ *         growing sizes n over {@link CountingField} and its multiplications
+ *         must not grow faster than n^e (with 25% slack against the smallest
+ *         size). The counts do not depend on the machine, so a check that
+ *         fails is a change of the algorithm. Exits with status 1 on failure.
+ */
+public class OperationCounts
+{
+    private static final double SLACK = 1.25;
+    private static int failures = 0;
+
+    public static void main(String[] args)
+    {
+	// lazy product: coefficient k costs k+1 multiplications
+	exact("PowerSeries.mul", n -> series(n, 1).mul(series(n, 2)).getCoefs(n), new int[] { 50, 100, 200 },
+		n -> (long) n * (n + 1) / 2);
+	growth("PowerSeries.invert", n -> series(n, 1).invert().getCoefs(n), new int[] { 50, 100, 200 }, 2);
+	growth("PowerSeries.invert(n)", n -> series(n, 1).invert(n).getCoefs(n), new int[] { 64, 128, 256 }, 1.7);
+	growth("ExtendedPowerSeries.pow", n -> new ExtendedPowerSeries<>(series(n, 1)).pow(10).getMainSeries()
+		.getCoefs(n), new int[] { 25, 50, 100 }, 2);
+	growth("PolynomialGCD", n -> PolynomialGCD.polynomialGCD(polynomial(n, 1).mul(polynomial(n / 2, 3)),
+		polynomial(n, 2).mul(polynomial(n / 2, 3))), new int[] { 8, 16, 32 }, 2);
+	growth("PolynomialDivision", n -> PolynomialDivision.polynomialDivision(polynomial(2 * n, 1), polynomial(n, 2)),
+		new int[] { 64, 128, 256 }, 1.7);
+	if(failures > 0)
+	{
+	    System.out.println(failures + " check(s) failed");
+	    System.exit(1);
+	}
+	System.out.println("All checks passed");
+    }
+
+    /**
+     * Series with small random rational coefficients and a nonzero constant
+     */
+    private static PowerSeries<CountingField<BigRational>> series(int n, long seed)
+    {
+	Random random = new Random(seed);
+	BigRational[] c = new BigRational[n];
+	for(int i = 0; i < n; i++)
+	    c[i] = new BigRational(i == 0 ? 1 + random.nextInt(5) : random.nextInt(11) - 5, 1 + random.nextInt(4));
+	CountingField<BigRational> zero = new CountingField<>(BigRational.ZERO);
+	return new PowerSeries<>(k -> k < n ? new CountingField<>(c[k.intValue()]) : zero, zero);
+    }
+
+    private static Polynomial<CountingField<BigRational>> polynomial(int degree, long seed)
+    {
+	Random random = new Random(seed);
+	CountingField<BigRational> zero = new CountingField<>(BigRational.ZERO);
+	@SuppressWarnings("unchecked")
+	CountingField<BigRational>[] c = new CountingField[degree + 1];
+	for(int i = 0; i <= degree; i++)
+	    c[i] = new CountingField<>(new BigRational(i == degree ? 1 + random.nextInt(5) : random.nextInt(11) - 5,
+		    1 + random.nextInt(4)));
+	return new Polynomial<>(zero, c);
+    }
+
+    private static void exact(String name, IntFunction<?> work, int[] sizes, IntFunction<Long> expected)
+    {
+	for(int n : sizes)
+	{
+	    Counts c = CountingField.count(() -> work.apply(n));
+	    boolean ok = c.mul == expected.apply(n);
+	    report(name, n, c, "mul = " + expected.apply(n), ok);
+	}
+    }
+
+    private static void growth(String name, IntFunction<?> work, int[] sizes, double exponent)
+    {
+	Counts first = null;
+	for(int n : sizes)
+	{
+	    Counts c = CountingField.count(() -> work.apply(n));
+	    if(first == null)
+		first = c;
+	    double bound = SLACK * first.mul * Math.pow((double) n / sizes[0], exponent);
+	    report(name, n, c, String.format("mul <= %.0f (n^%.1f)", bound, exponent), c.mul <= bound);
+	}
+    }
+
+    private static void report(String name, int n, Counts c, String check, boolean ok)
+    {
+	if(!ok)
+	    failures++;
+	System.out.printf("%-26s n = %4d  mul %9d  add %9d  alloc %9d  %-26s %s%n", name, n, c.mul, c.add,
+		c.allocations, check, ok ? "ok" : "FAILED");
+    }
+}
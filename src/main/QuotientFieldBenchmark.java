@@ -0,0 +1,47 @@
+package main;
+
+import interfaces.Normalization.Mode;
+import misc.QuotientField;
+import number.BigRational;
+import polynomial.Polynomial;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Operand growth of QuotientField<Polynomial<BigRational>> in the
+ *         three normalization modes: the partial sums of sum 1/(x+k) - 1/(x+k+1)
+ *         telescope to 1/(x+1) - 1/(x+n+1), products of (x+k)/(x+k+1) to
+ *         (x+1)/(x+n+1).
+ */
+public class QuotientFieldBenchmark
+{
+    public static void main(String[] args)
+    {
+	for(Mode mode : Mode.values())
+	{
+	    int n = 120;
+	    long start = System.nanoTime();
+	    QuotientField<Polynomial<BigRational>> sum = null, product = null;
+	    for(int k = 1; k <= n; k++)
+	    {
+		QuotientField<Polynomial<BigRational>> a = fraction(k, mode), b = fraction(k + 1, mode);
+		QuotientField<Polynomial<BigRational>> s = a.sub(b);
+		QuotientField<Polynomial<BigRational>> p = b.div(a);
+		sum = sum == null ? s : sum.add(s);
+		product = product == null ? p : product.mul(p);
+	    }
+	    double ms = (System.nanoTime() - start) / 1e6;
+	    System.out.printf("%-6s n = %3d   sum: degrees %3d/%3d   product: degrees %3d/%3d   %8.1f ms%n", mode, n,
+		    sum.getNumerator().degree(), sum.getDenominator().degree(), product.getNumerator().degree(),
+		    product.getDenominator().degree(), ms);
+	}
+    }
+
+    // 1/(x+k)
+    private static QuotientField<Polynomial<BigRational>> fraction(int k, Mode mode)
+    {
+	Polynomial<BigRational> d = Polynomial.LINEAR(new BigRational(k), BigRational.ONE);
+	return new QuotientField<>(d.ONE(), d, mode);
+    }
+}
@@ -0,0 +1,253 @@
+package misc;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import modular.ModularInteger;
+import number.BigRational;
+import polynomial.Polynomial;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Java Flight Recorder events of the long-running algebra operations.
+ *         The event types are created through jdk.jfr.EventFactory by
+ *         reflection, so the code compiles against the Java 8 API and runs
+ *         on runtimes without JFR, where every event is a shared no-op. An
+ *         operation calls {@link Type#begin()} and {@link Event#end()} and
+ *         computes its values for {@link Event#commit(Object...)} only if
+ *         end() returns true, i.e. if a recording takes the event. Calls
+ *         shorter than 1 ms are not recorded unless the recording sets a
+ *         lower threshold. The bit size of an input is the largest size of
+ *         its coefficients (numerator plus denominator for
+ *         {@link BigRational}, the modulus for {@link ModularInteger}, 0 if
+ *         unknown).
+ */
+public class AlgebraEvents
+{
+    public static final Type GCD = new Type("algebra.GCD", "Polynomial GCD",
+	    new Value(String.class, "operation", "Operation"), new Value(long.class, "degreeF", "Degree of f"),
+	    new Value(long.class, "degreeG", "Degree of g"), Value.BITS);
+
+    public static final Type DIVISION = new Type("algebra.Division", "Polynomial Division",
+	    new Value(long.class, "degreeF", "Degree of Dividend"),
+	    new Value(long.class, "degreeG", "Degree of Divisor"), Value.BITS);
+
+    public static final Type SERIES_INVERSION = new Type("algebra.SeriesInversion", "Series Inversion",
+	    new Value(String.class, "operation", "Operation"), new Value(long.class, "index", "Coefficient Index"),
+	    Value.BITS);
+
+    public static final Type BATCH_EVALUATION = new Type("algebra.BatchEvaluation", "Batch Evaluation",
+	    new Value(String.class, "operation", "Operation"), new Value(long.class, "degree", "Degree"),
+	    new Value(long.class, "count", "Values"), Value.BITS);
+
+    public static final Type TAYLOR_SHIFT = new Type("algebra.TaylorShift", "Taylor Shift",
+	    new Value(long.class, "degree", "Degree"), Value.BITS);
+
+    /**
+     * Field of an event type
+     */
+    private static class Value
+    {
+	static final Value BITS = new Value(long.class, "bits", "Coefficient Size");
+
+	final Class<?> type;
+	final String name, label;
+
+	Value(Class<?> type, String name, String label)
+	{
+	    this.type = type;
+	    this.name = name;
+	    this.label = label;
+	}
+    }
+
+    /**
+     * Event type, without JFR its events do nothing
+     */
+    public static class Type
+    {
+	private final Object factory; // jdk.jfr.EventFactory, null without JFR
+
+	private Type(String name, String label, Value... values)
+	{
+	    this.factory = Jfr.factory(name, label, values);
+	}
+
+	/**
+	 * New event of this type whose timing starts now
+	 */
+	public Event begin()
+	{
+	    if(factory == null)
+		return Event.NONE;
+	    try
+	    {
+		Object e = Jfr.NEW_EVENT.invokeExact(factory);
+		Jfr.BEGIN.invokeExact(e);
+		return new Event(e);
+	    }
+	    catch(Throwable t)
+	    {
+		throw new IllegalStateException(t);
+	    }
+	}
+    }
+
+    /**
+     * One timed call of an operation
+     */
+    public static class Event
+    {
+	private static final Event NONE = new Event(null);
+
+	private final Object event; // jdk.jfr.Event
+
+	private Event(Object event)
+	{
+	    this.event = event;
+	}
+
+	/**
+	 * Ends the timing
+	 * @return true if the event is recorded, it must then be committed
+	 */
+	public boolean end()
+	{
+	    if(event == null)
+		return false;
+	    try
+	    {
+		Jfr.END.invokeExact(event);
+		return (boolean) Jfr.SHOULD_COMMIT.invokeExact(event);
+	    }
+	    catch(Throwable t)
+	    {
+		throw new IllegalStateException(t);
+	    }
+	}
+
+	/**
+	 * Writes the event with the values of the fields of its type
+	 */
+	public void commit(Object... values)
+	{
+	    if(event == null)
+		return;
+	    try
+	    {
+		for(int i = 0; i < values.length; i++)
+		    Jfr.SET.invokeExact(event, i, values[i]);
+		Jfr.COMMIT.invokeExact(event);
+	    }
+	    catch(Throwable t)
+	    {
+		throw new IllegalStateException(t);
+	    }
+	}
+    }
+
+    /**
+     * Handles of the jdk.jfr API, all null if the runtime has no JFR
+     */
+    private static class Jfr
+    {
+	static final MethodHandle NEW_EVENT, BEGIN, END, SHOULD_COMMIT, SET, COMMIT;
+
+	static
+	{
+	    MethodHandle[] h = new MethodHandle[6];
+	    try
+	    {
+		Class<?> event = Class.forName("jdk.jfr.Event"), factory = Class.forName("jdk.jfr.EventFactory");
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		MethodType action = MethodType.methodType(void.class, Object.class);
+		h[0] = lookup.findVirtual(factory, "newEvent", MethodType.methodType(event))
+			.asType(MethodType.methodType(Object.class, Object.class));
+		h[1] = lookup.findVirtual(event, "begin", MethodType.methodType(void.class)).asType(action);
+		h[2] = lookup.findVirtual(event, "end", MethodType.methodType(void.class)).asType(action);
+		h[3] = lookup.findVirtual(event, "shouldCommit", MethodType.methodType(boolean.class))
+			.asType(MethodType.methodType(boolean.class, Object.class));
+		h[4] = lookup.findVirtual(event, "set", MethodType.methodType(void.class, int.class, Object.class))
+			.asType(MethodType.methodType(void.class, Object.class, int.class, Object.class));
+		h[5] = lookup.findVirtual(event, "commit", MethodType.methodType(void.class)).asType(action);
+	    }
+	    catch(ReflectiveOperationException | LinkageError e)
+	    {
+		Arrays.fill(h, null);
+	    }
+	    NEW_EVENT = h[0];
+	    BEGIN = h[1];
+	    END = h[2];
+	    SHOULD_COMMIT = h[3];
+	    SET = h[4];
+	    COMMIT = h[5];
+	}
+
+	/**
+	 * jdk.jfr.EventFactory of an event type in the category Algebra with a
+	 * threshold of 1 ms, null without JFR
+	 */
+	static Object factory(String name, String label, Value[] values)
+	{
+	    if(COMMIT == null)
+		return null;
+	    try
+	    {
+		Class<?> element = Class.forName("jdk.jfr.AnnotationElement");
+		Constructor<?> annotation = element.getConstructor(Class.class, Object.class);
+		Constructor<?> descriptor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class,
+			String.class, List.class);
+		List<Object> annotations = Arrays.asList(annotation.newInstance(Class.forName("jdk.jfr.Name"), name),
+			annotation.newInstance(Class.forName("jdk.jfr.Label"), label),
+			annotation.newInstance(Class.forName("jdk.jfr.Category"), new String[] { "Algebra" }),
+			annotation.newInstance(Class.forName("jdk.jfr.Threshold"), "1 ms"));
+		List<Object> fields = new ArrayList<>();
+		for(Value v : values)
+		{
+		    List<Object> a = new ArrayList<>();
+		    a.add(annotation.newInstance(Class.forName("jdk.jfr.Label"), v.label));
+		    if(v == Value.BITS)
+			a.add(annotation.newInstance(Class.forName("jdk.jfr.DataAmount"), "BITS"));
+		    fields.add(descriptor.newInstance(v.type, v.name, a));
+		}
+		return Class.forName("jdk.jfr.EventFactory").getMethod("create", List.class, List.class).invoke(null,
+			annotations, fields);
+	    }
+	    catch(ReflectiveOperationException | LinkageError e)
+	    {
+		return null;
+	    }
+	}
+    }
+
+    /**
+     * Largest bit size of the coefficients of the values (elements,
+     * polynomials or arrays of them)
+     */
+    public static long bits(Object... values)
+    {
+	long b = 0;
+	for(Object v : values)
+	{
+	    if(v instanceof BigRational)
+	    {
+		BigRational r = (BigRational) v;
+		b = Math.max(b, r.numerator().bitLength() + r.denominator().bitLength());
+	    }
+	    else if(v instanceof ModularInteger)
+		b = Math.max(b, 64 - Long.numberOfLeadingZeros(((ModularInteger) v).getField().modulus()));
+	    else if(v instanceof Polynomial<?>)
+		b = Math.max(b, bits((Object[]) ((Polynomial<?>) v).toArray()));
+	    else if(v instanceof Object[])
+		b = Math.max(b, bits((Object[]) v));
+	}
+	return b;
+    }
+}
@@ -0,0 +1,144 @@
+package misc;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Cooperative limits for long computations: a deadline, a number of
+ *         field operations and cancellation from another thread. A budget
+ *         applies to the work passed to {@link #run(Supplier)} on the calling
+ *         thread, nested budgets all apply. The hot loops of the series, gcd,
+ *         division and number field code call {@link #charge(long)}, which
+ *         throws a {@link CancellationException} once a limit is reached or
+ *         the thread is interrupted. The work is abandoned between two
+ *         coefficients or steps, so memoized coefficients stay valid.
+ */
+public class Budget
+{
+    private static final ThreadLocal<Frame> CURRENT = new ThreadLocal<>();
+
+    private static class Frame
+    {
+	final Budget budget;
+	final Frame outer;
+
+	Frame(Budget budget, Frame outer)
+	{
+	    this.budget = budget;
+	    this.outer = outer;
+	}
+    }
+
+    private final long deadline; // System.nanoTime(), Long.MAX_VALUE if none
+    private final long maxOperations;
+    private final AtomicLong operations = new AtomicLong();
+    private volatile boolean cancelled;
+
+    /**
+     * Budget without limits, only {@link #cancel()} stops the work
+     */
+    public Budget()
+    {
+	this(Long.MAX_VALUE, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param timeout time from now until the deadline, Long.MAX_VALUE for
+     *            none
+     * @param maxOperations number of field operations, Long.MAX_VALUE for no
+     *            limit
+     */
+    public Budget(long timeout, TimeUnit unit, long maxOperations)
+    {
+	this.deadline = timeout == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + unit.toNanos(timeout);
+	this.maxOperations = maxOperations;
+    }
+
+    public static Budget timeout(long millis)
+    {
+	return new Budget(millis, TimeUnit.MILLISECONDS, Long.MAX_VALUE);
+    }
+
+    public static Budget operations(long maxOperations)
+    {
+	return new Budget(Long.MAX_VALUE, null, maxOperations);
+    }
+
+    /**
+     * Stops the work under this budget at its next check (from any thread)
+     */
+    public void cancel()
+    {
+	cancelled = true;
+    }
+
+    public boolean isCancelled()
+    {
+	return cancelled;
+    }
+
+    /**
+     * Field operations charged so far
+     */
+    public long getOperations()
+    {
+	return operations.get();
+    }
+
+    /**
+     * Result of work computed under this budget on the calling thread
+     * @throws CancellationException if a limit is reached
+     */
+    public <T> T run(Supplier<T> work)
+    {
+	Frame outer = CURRENT.get();
+	CURRENT.set(new Frame(this, outer));
+	try
+	{
+	    charge(0);
+	    return work.get();
+	}
+	finally
+	{
+	    if(outer == null)
+		CURRENT.remove();
+	    else
+		CURRENT.set(outer);
+	}
+    }
+
+    /**
+     * Checks the budgets of the calling thread without charging operations
+     */
+    public static void check()
+    {
+	charge(0);
+    }
+
+    /**
+     * Charges operations to the budgets of the calling thread
+     * @throws CancellationException if a limit is reached
+     */
+    public static void charge(long ops)
+    {
+	for(Frame f = CURRENT.get(); f != null; f = f.outer)
+	    f.budget.spend(ops);
+    }
+
+    private void spend(long ops)
+    {
+	if(cancelled)
+	    throw new CancellationException("Cancelled");
+	if(Thread.currentThread().isInterrupted())
+	    throw new CancellationException("Interrupted");
+	if(maxOperations != Long.MAX_VALUE && operations.addAndGet(ops) > maxOperations)
+	    throw new CancellationException("Budget of " + maxOperations + " operations exhausted");
+	if(deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0)
+	    throw new CancellationException("Deadline exceeded");
+    }
+}
@@ -0,0 +1,199 @@
+package misc;
+
+import java.util.function.Supplier;
+
+import interfaces.Field;
+import interfaces.RingContext;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Elements of a field that count the arithmetic operations performed
+ *         on them and the elements they create. The counts are kept per
+ *         thread, so work done in parallel streams or other threads is not
+ *         seen by the calling thread. The counts are deterministic and can
+ *         replace timings to catch changes of the complexity of algorithms.
+ */
+public class CountingField<F extends Field<F>> implements Field<CountingField<F>>
+{
+    /**
+     * Operation counts of one thread
+     */
+    public static class Counts
+    {
+	public long add, sub, mul, div, invert, pow, allocations;
+
+	public long operations()
+	{
+	    return add + sub + mul + div + invert + pow;
+	}
+
+	public String toString()
+	{
+	    return "add " + add + ", sub " + sub + ", mul " + mul + ", div " + div + ", invert " + invert + ", pow "
+		    + pow + ", allocations " + allocations;
+	}
+    }
+
+    private static final ThreadLocal<Counts> COUNTS = ThreadLocal.withInitial(Counts::new);
+
+    private final F value;
+
+    public CountingField(F value)
+    {
+	this(value, true);
+    }
+
+    private CountingField(F value, boolean counted)
+    {
+	this.value = value;
+	if(counted)
+	    COUNTS.get().allocations++;
+    }
+
+    /**
+     * Counts of the current thread since the last reset
+     */
+    public static Counts counts()
+    {
+	return COUNTS.get();
+    }
+
+    public static void reset()
+    {
+	COUNTS.set(new Counts());
+    }
+
+    /**
+     * Counts of the operations done by work on the current thread, the counts
+     * outside are not changed
+     */
+    public static Counts count(Supplier<?> work)
+    {
+	Counts outer = COUNTS.get();
+	COUNTS.set(new Counts());
+	try
+	{
+	    work.get();
+	    return COUNTS.get();
+	}
+	finally
+	{
+	    COUNTS.set(outer);
+	}
+    }
+
+    public F getValue()
+    {
+	return value;
+    }
+
+    /**
+     * The context is shared by all counting elements over the same field, it
+     * has no capabilities since the kernels behind them bypass the elements
+     */
+    @Override
+    public RingContext<CountingField<F>> context()
+    {
+	RingContext<F> c = value.context();
+	return c.derived(CountingField.class, () -> new RingContext<CountingField<F>>(
+		new CountingField<F>(c.ZERO(), false), new CountingField<F>(c.ONE(), false),
+		new CountingField<F>(c.NONE(), false)));
+    }
+
+    @Override
+    public CountingField<F> NONE()
+    {
+	return context().NONE();
+    }
+
+    @Override
+    public CountingField<F> ZERO()
+    {
+	return context().ZERO();
+    }
+
+    @Override
+    public CountingField<F> ONE()
+    {
+	return context().ONE();
+    }
+
+    @Override
+    public CountingField<F> add(CountingField<F> b)
+    {
+	COUNTS.get().add++;
+	return new CountingField<F>(value.add(b.value));
+    }
+
+    @Override
+    public CountingField<F> sub(CountingField<F> b)
+    {
+	COUNTS.get().sub++;
+	return new CountingField<F>(value.sub(b.value));
+    }
+
+    @Override
+    public CountingField<F> mul(CountingField<F> b)
+    {
+	COUNTS.get().mul++;
+	return new CountingField<F>(value.mul(b.value));
+    }
+
+    @Override
+    public CountingField<F> negate()
+    {
+	return new CountingField<F>(value.negate());
+    }
+
+    @Override
+    public boolean isZero()
+    {
+	return value.isZero();
+    }
+
+    @Override
+    public boolean isOne()
+    {
+	return value.isOne();
+    }
+
+    @Override
+    public CountingField<F> div(CountingField<F> b)
+    {
+	COUNTS.get().div++;
+	return new CountingField<F>(value.div(b.value));
+    }
+
+    @Override
+    public CountingField<F> invert()
+    {
+	COUNTS.get().invert++;
+	return new CountingField<F>(value.invert());
+    }
+
+    @Override
+    public CountingField<F> pow(long p)
+    {
+	COUNTS.get().pow++;
+	return new CountingField<F>(value.pow(p));
+    }
+
+    public boolean equals(Object b)
+    {
+	if(!(b instanceof CountingField<?>))
+	    return false;
+	return value.equals(((CountingField<?>) b).value);
+    }
+
+    public int hashCode()
+    {
+	return value.hashCode();
+    }
+
+    public String toString()
+    {
+	return value.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package misc;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Pool that maps structurally equal values (by equals and hashCode) to
+ *         one canonical instance, so that equality of interned values is a
+ *         reference check. The pool holds its values weakly, values that are
+ *         no longer used elsewhere are dropped.
+ */
+public class Interner<T>
+{
+    private final WeakHashMap<T, WeakReference<T>> pool = new WeakHashMap<>();
+
+    /**
+     * The canonical instance equal to t (t itself if there is none yet)
+     */
+    public synchronized T intern(T t)
+    {
+	WeakReference<T> ref = pool.get(t);
+	T c = ref == null ? null : ref.get();
+	if(c != null)
+	    return c;
+	pool.put(t, new WeakReference<>(t));
+	return t;
+    }
+
+    public synchronized int size()
+    {
+	return pool.size();
+    }
+
+    public synchronized void clear()
+    {
+	pool.clear();
+    }
+}
@@ -0,0 +1,153 @@
+package misc;
+
+import java.util.HashMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Thread-safe memo table of bounded total size. Each entry has the
+ *         cost of computing it (given by the caller) and a size (given by
+ *         the weigher). When the size exceeds the capacity the entry with the
+ *         lowest priority clock + hits * cost / size is evicted and the clock
+ *         advances to its priority (GreedyDual-Size-Frequency), so cheap,
+ *         large and rarely used results go first. Values are computed outside
+ *         the lock, concurrent misses on one key may compute it twice.
+ */
+public class MemoCache<K, V>
+{
+    private static class Entry<K, V> implements Comparable<Entry<K, V>>
+    {
+	final K key;
+	final V value;
+	final long cost, size, serial;
+	long hits = 1;
+	double priority;
+
+	Entry(K key, V value, long cost, long size, long serial)
+	{
+	    this.key = key;
+	    this.value = value;
+	    this.cost = cost;
+	    this.size = size;
+	    this.serial = serial;
+	}
+
+	@Override
+	public int compareTo(Entry<K, V> e)
+	{
+	    int c = Double.compare(priority, e.priority);
+	    return c != 0 ? c : Long.compare(serial, e.serial);
+	}
+    }
+
+    private final long capacity;
+    private final ToLongFunction<V> weigher;
+    private final HashMap<K, Entry<K, V>> map = new HashMap<>();
+    private final TreeSet<Entry<K, V>> queue = new TreeSet<>();
+    private double clock;
+    private long weight, serial, hits, misses, evictions;
+
+    /**
+     * @param capacity largest total size of the entries
+     * @param weigher size of a value (at least 1 is used)
+     */
+    public MemoCache(long capacity, ToLongFunction<V> weigher)
+    {
+	this.capacity = capacity;
+	this.weigher = weigher;
+    }
+
+    /**
+     * The value of key, computed by f on a miss
+     * @param cost estimated cost of f
+     */
+    public V get(K key, Supplier<V> f, long cost)
+    {
+	synchronized(this)
+	{
+	    Entry<K, V> e = map.get(key);
+	    if(e != null)
+	    {
+		hits++;
+		queue.remove(e);
+		e.hits++;
+		e.priority = clock + (double) e.hits * e.cost / e.size;
+		queue.add(e);
+		return e.value;
+	    }
+	    misses++;
+	}
+	V v = f.get();
+	put(key, v, cost);
+	return v;
+    }
+
+    private synchronized void put(K key, V v, long cost)
+    {
+	long size = Math.max(1, weigher.applyAsLong(v));
+	if(size > capacity || map.containsKey(key))
+	    return;
+	Entry<K, V> e = new Entry<>(key, v, Math.max(1, cost), size, serial++);
+	e.priority = clock + (double) e.cost / e.size;
+	while(weight + size > capacity)
+	{
+	    Entry<K, V> victim = queue.pollFirst();
+	    map.remove(victim.key);
+	    weight -= victim.size;
+	    clock = victim.priority;
+	    evictions++;
+	}
+	map.put(key, e);
+	queue.add(e);
+	weight += size;
+    }
+
+    public synchronized long hits()
+    {
+	return hits;
+    }
+
+    public synchronized long misses()
+    {
+	return misses;
+    }
+
+    public synchronized long evictions()
+    {
+	return evictions;
+    }
+
+    /**
+     * Number of entries
+     */
+    public synchronized int size()
+    {
+	return map.size();
+    }
+
+    /**
+     * Total size of the entries
+     */
+    public synchronized long weight()
+    {
+	return weight;
+    }
+
+    public synchronized void clear()
+    {
+	map.clear();
+	queue.clear();
+	weight = 0;
+	clock = 0;
+    }
+
+    public synchronized String toString()
+    {
+	return "MemoCache[entries=" + map.size() + ", weight=" + weight + "/" + capacity + ", hits=" + hits + ", misses="
+		+ misses + ", evictions=" + evictions + "]";
+    }
+}
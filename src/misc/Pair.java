@@ -1,5 +1,7 @@
 package misc;
 
+import java.util.Objects;
+
 public class Pair<U, V> 
 {
     U u;
@@ -31,6 +33,19 @@ public class Pair<U, V>
         this.v = v;
     }
 
+    public boolean equals(Object b)
+    {
+        if(!(b instanceof Pair<?, ?>))
+            return false;
+        Pair<?, ?> p = (Pair<?, ?>) b;
+        return Objects.equals(u, p.u) && Objects.equals(v, p.v);
+    }
+
+    public int hashCode()
+    {
+        return 31 * Objects.hashCode(u) + Objects.hashCode(v);
+    }
+
     public String toString()
     {
         return "Pair[" + u + " | " + v + "]";
@@ -1,31 +1,125 @@
 package misc;
 
-import number.BigRational;
 import interfaces.Field;
 import interfaces.IntegralDomain;
+import interfaces.Normalization;
+import interfaces.Normalization.Mode;
+import interfaces.RingContext;
 
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Fractions over an integral domain. If the domain provides a
+ *         {@link Normalization} fractions are reduced according to the mode:
+ *         always (EAGER), when the size of numerator and denominator has
+ *         doubled since the last reduction and is above SIZE_THRESHOLD (LAZY)
+ *         or never. Sums and products of reduced fractions are computed by
+ *         Henrici's formulas, which only take gcds of the smaller pieces.
+ */
 public class QuotientField<D extends IntegralDomain<D>> implements Field<QuotientField<D>>
 {
+    /**
+     * Mode of fractions created by the public constructor
+     */
+    public static Mode DEFAULT_MODE = Mode.LAZY;
+
+    /**
+     * Lazy mode: fractions with a smaller size are not reduced
+     */
+    public static long SIZE_THRESHOLD = 32;
+
     private D num, den;
+    private final Mode mode;
+    private boolean reduced;
+    private long limit; // lazy mode: reduce when the size exceeds this
 
     public QuotientField(D n, D d)
+    {
+	this(n, d, DEFAULT_MODE);
+    }
+
+    public QuotientField(D n, D d, Mode mode)
+    {
+	this(n, d, mode, false, SIZE_THRESHOLD);
+    }
+
+    private QuotientField(D n, D d, Mode mode, boolean reduced, long limit)
     {
 	num = n;
 	den = d;
 	if(d.isZero())
 	    throw new IllegalArgumentException("Denominator is zero");
+	this.mode = mode;
+	this.reduced = reduced;
+	this.limit = limit;
+	if(!reduced && mode != Mode.NEVER)
+	{
+	    Normalization<D> norm = normalization();
+	    if(norm != null && (mode == Mode.EAGER || norm.size(num) + norm.size(den) > limit))
+		reduce(norm);
+	}
+    }
+
+    private void reduce(Normalization<D> norm)
+    {
+	D g = norm.gcd(num, den);
+	num = norm.divide(num, g);
+	den = norm.divide(den, g);
+	D u = norm.unit(den);
+	if(!u.isOne())
+	{
+	    num = norm.divide(num, u);
+	    den = norm.divide(den, u);
+	}
+	reduced = true;
+	limit = Math.max(SIZE_THRESHOLD, 2 * (norm.size(num) + norm.size(den)));
+    }
+
+    private Normalization<D> normalization()
+    {
+	return num.context().normalization();
+    }
+
+    /**
+     * Result of an operation on this and b
+     */
+    private QuotientField<D> create(D n, D d, QuotientField<D> b, boolean reduced)
+    {
+	return new QuotientField<>(n, d, mode, reduced, Math.max(limit, b.limit));
+    }
+
+    /**
+     * Context of the quotient field of the domain of obj
+     */
+    public static <D extends IntegralDomain<D>> RingContext<QuotientField<D>> context(D obj)
+    {
+	RingContext<D> c = obj.context();
+	return c.derived(QuotientField.class, () -> new RingContext<QuotientField<D>>(constant(c.ZERO(), c),
+		constant(c.ONE(), c), constant(c.NONE(), c)));
+    }
+
+    private static <D extends IntegralDomain<D>> QuotientField<D> constant(D n, RingContext<D> c)
+    {
+	return new QuotientField<>(n, c.ONE(), DEFAULT_MODE, c.normalization() != null, SIZE_THRESHOLD);
+    }
+
+    @Override
+    public RingContext<QuotientField<D>> context()
+    {
+	return context(num);
     }
 
     @Override
     public QuotientField<D> ZERO()
     {
-	return new QuotientField<>(num.ZERO(), den.ONE());
+	return context().ZERO();
     }
 
     @Override
     public QuotientField<D> ONE()
     {
-	return new QuotientField<>(num.ZERO(), den.ONE());
+	return context().ONE();
     }
 
     public D getNumerator()
@@ -38,22 +132,82 @@ public class QuotientField<D extends IntegralDomain<D>> implements Field<Quotien
 	return den;
     }
 
+    public Mode getMode()
+    {
+	return mode;
+    }
+
+    /**
+     * @return true if numerator and denominator are coprime and the
+     *         denominator is normalized
+     */
+    public boolean isReduced()
+    {
+	return reduced;
+    }
+
+    /**
+     * The reduced fraction (this if it is reduced or the domain has no
+     * normalization)
+     */
+    public QuotientField<D> reduce()
+    {
+	Normalization<D> norm = normalization();
+	if(reduced || norm == null)
+	    return this;
+	QuotientField<D> q = new QuotientField<>(num, den, mode, true, limit);
+	q.reduce(norm);
+	return q;
+    }
+
     @Override
     public QuotientField<D> add(QuotientField<D> b)
     {
-	return new QuotientField<>(num.mul(b.den).add(b.num.mul(den)), den.mul(b.den));
+	Normalization<D> norm = henrici(b);
+	if(norm == null)
+	    return create(num.mul(b.den).add(b.num.mul(den)), den.mul(b.den), b, false);
+	// a/c + b/d = (a*(d/g) + b*(c/g)) / (c/g*d), g = gcd(c, d)
+	D g = norm.gcd(den, b.den);
+	if(g.isOne())
+	    return create(num.mul(b.den).add(b.num.mul(den)), den.mul(b.den), b, true);
+	D c = norm.divide(den, g), d = norm.divide(b.den, g);
+	D t = num.mul(d).add(b.num.mul(c));
+	if(t.isZero())
+	    return create(t, den.ONE(), b, true);
+	D h = norm.gcd(t, g);
+	return create(norm.divide(t, h), c.mul(norm.divide(b.den, h)), b, true);
     }
 
     @Override
     public QuotientField<D> sub(QuotientField<D> b)
     {
-	return new QuotientField<>(num.mul(b.den).sub(b.num.mul(den)), den.mul(b.den));
+	return add(b.negate());
     }
 
     @Override
     public QuotientField<D> mul(QuotientField<D> b)
     {
-	return new QuotientField<>(num.mul(b.num), den.mul(b.den));
+	Normalization<D> norm = henrici(b);
+	if(norm == null)
+	    return create(num.mul(b.num), den.mul(b.den), b, false);
+	if(num.isZero() || b.num.isZero())
+	    return create(num.ZERO(), den.ONE(), b, true);
+	// cancel crosswise: g1 = gcd(a, d), g2 = gcd(b, c)
+	D g1 = norm.gcd(num, b.den), g2 = norm.gcd(b.num, den);
+	D n = norm.divide(num, g1).mul(norm.divide(b.num, g2));
+	D d = norm.divide(den, g2).mul(norm.divide(b.den, g1));
+	return create(n, d, b, true);
+    }
+
+    /**
+     * Normalization if both operands are reduced and results should stay
+     * reduced, otherwise null
+     */
+    private Normalization<D> henrici(QuotientField<D> b)
+    {
+	if(!reduced || !b.reduced || mode == Mode.NEVER)
+	    return null;
+	return normalization();
     }
 
     @Override
@@ -71,25 +225,32 @@ public class QuotientField<D extends IntegralDomain<D>> implements Field<Quotien
     @Override
     public QuotientField<D> NONE()
     {
-	return new QuotientField<>(num.NONE(), num.ONE());
+	return context().NONE();
     }
 
     @Override
     public QuotientField<D> div(QuotientField<D> b)
     {
-	return new QuotientField<>(num.mul(b.den), den.mul(b.num));
+	return this.mul(b.invert());
     }
 
     @Override
     public QuotientField<D> invert()
     {
-	return new QuotientField<>(den, num);
+	if(num.isZero())
+	    throw new ArithmeticException("Zero is not invertible");
+	Normalization<D> norm = reduced ? normalization() : null;
+	if(norm == null)
+	    return new QuotientField<>(den, num, mode, false, limit);
+	// keep the denominator normalized
+	D u = norm.unit(num);
+	return new QuotientField<>(norm.divide(den, u), norm.divide(num, u), mode, true, limit);
     }
 
     @Override
     public QuotientField<D> negate()
     {
-	return new QuotientField<>(num.negate(), den);
+	return new QuotientField<>(num.negate(), den, mode, reduced, limit);
     }
 
     @Override
@@ -104,6 +265,7 @@ public class QuotientField<D extends IntegralDomain<D>> implements Field<Quotien
 	return this.mul(this.pow(p - 1));
     }
 
+    @SuppressWarnings("unchecked")
     public boolean equals(Object b)
     {
 	if(!(b instanceof QuotientField<?>))
@@ -111,7 +273,22 @@ public class QuotientField<D extends IntegralDomain<D>> implements Field<Quotien
 	QuotientField<?> q = (QuotientField<?>) b;
 	if(!q.getNumerator().getClass().equals(num.getClass()))
 	    return false;
+	// reduced fractions are canonical
+	if(reduced && q.reduced)
+	    return num.equals(q.num) && den.equals(q.den);
 	return this.getNumerator().mul((D) q.getDenominator()).
 		equals(this.getDenominator().mul((D) q.getNumerator()));
     }
+
+    /**
+     * Hash of the reduced fraction. Without a normalization of the domain
+     * fractions have no canonical form and all hash to the same value.
+     */
+    public int hashCode()
+    {
+	QuotientField<D> r = reduce();
+	if(!r.reduced)
+	    return num.getClass().hashCode();
+	return 31 * r.num.hashCode() + r.den.hashCode();
+    }
 }
@@ -0,0 +1,73 @@
+package modular;
+
+import java.math.BigInteger;
+
+import number.BigRational;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Chinese remaindering and rational reconstruction for multi-modular
+ *         algorithms.
+ */
+public class ChineseRemainder
+{
+    /**
+     * Combines x = r mod m and x = a mod p into x mod m*p
+     * @param r residue in [0, m)
+     * @param m modulus
+     * @param a residue in [0, p)
+     * @param p prime not dividing m
+     * @return the residue in [0, m*p)
+     */
+    public static BigInteger combine(BigInteger r, BigInteger m, long a, long p)
+    {
+	BigInteger bp = BigInteger.valueOf(p);
+	long rp = r.mod(bp).longValue();
+	long mInv = ModularArithmetic.invert(m.mod(bp).longValue(), p);
+	long t = ModularArithmetic.mul(ModularArithmetic.sub(a, rp, p), mInv, p);
+	return r.add(m.multiply(BigInteger.valueOf(t)));
+    }
+
+    /**
+     * Combines the residues r[k] mod m with a[k] mod p in place, the inverse of
+     * m mod p is computed once for all k
+     */
+    public static void combine(BigInteger[] r, BigInteger m, long[] a, long p)
+    {
+	BigInteger bp = BigInteger.valueOf(p);
+	long mInv = ModularArithmetic.invert(m.mod(bp).longValue(), p);
+	for(int k = 0; k < r.length; k++)
+	{
+	    long rp = r[k].mod(bp).longValue();
+	    long t = ModularArithmetic.mul(ModularArithmetic.sub(a[k], rp, p), mInv, p);
+	    if(t != 0)
+		r[k] = r[k].add(m.multiply(BigInteger.valueOf(t)));
+	}
+    }
+
+    /**
+     * Rational reconstruction: finds n/d with n = d*u mod m and |n|, d <=
+     * 2^((log2(m) - 2) / 2) <= sqrt(m/2)
+     * @return the rational number or null if none exists
+     */
+    public static BigRational rationalReconstruction(BigInteger u, BigInteger m)
+    {
+	BigInteger bound = BigInteger.ONE.shiftLeft((m.bitLength() - 2) / 2);
+	BigInteger r0 = m, r1 = u.mod(m);
+	BigInteger t0 = BigInteger.ZERO, t1 = BigInteger.ONE;
+	while(r1.compareTo(bound) > 0)
+	{
+	    BigInteger[] qr = r0.divideAndRemainder(r1);
+	    r0 = r1;
+	    r1 = qr[1];
+	    BigInteger h = t0.subtract(qr[0].multiply(t1));
+	    t0 = t1;
+	    t1 = h;
+	}
+	if(t1.signum() == 0 || t1.abs().compareTo(bound) > 0 || !t1.gcd(r1).equals(BigInteger.ONE))
+	    return null;
+	return new BigRational(r1, t1);
+    }
+}
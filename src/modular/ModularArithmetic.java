@@ -0,0 +1,275 @@
+package modular;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import number.BigRational;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Arithmetic on residues 0 <= a < p for word-sized primes p < 2^31
+ *         and dense polynomials over Z/pZ stored as <tt>long[]<tt> (index =
+ *         exponent, no trailing zeros, the zero polynomial has length 0).
+ */
+public class ModularArithmetic
+{
+    public static long add(long a, long b, long p)
+    {
+	long s = a + b;
+	return s >= p ? s - p : s;
+    }
+
+    public static long sub(long a, long b, long p)
+    {
+	long s = a - b;
+	return s < 0 ? s + p : s;
+    }
+
+    public static long mul(long a, long b, long p)
+    {
+	return a * b % p;
+    }
+
+    public static long pow(long a, long e, long p)
+    {
+	long r = 1;
+	a %= p;
+	while(e > 0)
+	{
+	    if((e & 1) == 1)
+		r = r * a % p;
+	    a = a * a % p;
+	    e >>= 1;
+	}
+	return r;
+    }
+
+    public static long invert(long a, long p)
+    {
+	if(a == 0)
+	    throw new ArithmeticException("Zero is not invertible");
+	long t = 0, newT = 1;
+	long r = p, newR = a;
+	while(newR != 0)
+	{
+	    long q = r / newR;
+	    long h = t - q * newT;
+	    t = newT;
+	    newT = h;
+	    h = r - q * newR;
+	    r = newR;
+	    newR = h;
+	}
+	return t < 0 ? t + p : t;
+    }
+
+    /**
+     * Image of a rational number in Z/pZ
+     * @return the residue or -1 if p divides the denominator
+     */
+    public static long reduce(BigRational a, long p)
+    {
+	BigInteger bp = BigInteger.valueOf(p);
+	long d = a.denominator().mod(bp).longValue();
+	if(d == 0)
+	    return -1;
+	long n = a.numerator().mod(bp).longValue();
+	return d == 1 ? n : mul(n, invert(d, p), p);
+    }
+
+    public static long[] trim(long[] a)
+    {
+	int n = a.length;
+	while(n > 0 && a[n - 1] == 0)
+	    n--;
+	if(n == a.length)
+	    return a;
+	long[] b = new long[n];
+	System.arraycopy(a, 0, b, 0, n);
+	return b;
+    }
+
+    /**
+     * Remainder of the division of a by b (b != 0)
+     */
+    public static long[] remainder(long[] a, long[] b, long p)
+    {
+	if(b.length == 0)
+	    throw new IllegalArgumentException("Cannot divide by 0-Polynomial");
+	if(a.length < b.length)
+	    return a;
+	long[] r = a.clone();
+	int db = b.length - 1;
+	long lcInv = invert(b[db], p);
+	for(int k = r.length - 1; k >= db; k--)
+	{
+	    long c = mul(r[k], lcInv, p);
+	    if(c == 0)
+		continue;
+	    int s = k - db;
+	    for(int j = 0; j <= db; j++)
+		r[s + j] = sub(r[s + j], mul(c, b[j], p), p);
+	}
+	long[] rem = new long[db];
+	System.arraycopy(r, 0, rem, 0, db);
+	return trim(rem);
+    }
+
+    public static long[] monic(long[] a, long p)
+    {
+	if(a.length == 0)
+	    return a;
+	long lcInv = invert(a[a.length - 1], p);
+	long[] b = new long[a.length];
+	for(int i = 0; i < a.length; i++)
+	    b[i] = mul(a[i], lcInv, p);
+	return b;
+    }
+
+    /**
+     * Monic gcd of a and b over Z/pZ
+     */
+    public static long[] gcd(long[] a, long[] b, long p)
+    {
+	while(b.length != 0)
+	{
+	    long[] r = remainder(a, b, p);
+	    a = b;
+	    b = r;
+	}
+	return monic(a, p);
+    }
+
+    /**
+     * Inverses of all entries of a (Montgomery's simultaneous inversion)
+     * @throws ArithmeticException if an entry is zero
+     */
+    public static long[] invertAll(long[] a, long p)
+    {
+	long[] r = new long[a.length];
+	long prod = 1;
+	for(int i = 0; i < a.length; i++)
+	{
+	    r[i] = prod;
+	    prod = mul(prod, a[i], p);
+	}
+	long inv = invert(prod, p);
+	for(int i = a.length - 1; i >= 0; i--)
+	{
+	    r[i] = mul(r[i], inv, p);
+	    inv = mul(inv, a[i], p);
+	}
+	return r;
+    }
+
+    public static long[] multiply(long[] a, long[] b, long p)
+    {
+	if(a.length == 0 || b.length == 0)
+	    return new long[0];
+	long[] c = new long[a.length + b.length - 1];
+	for(int i = 0; i < a.length; i++)
+	    for(int j = 0; j < b.length; j++)
+		c[i + j] = add(c[i + j], mul(a[i], b[j], p), p);
+	return trim(c);
+    }
+
+    /**
+     * Resultant of a and b over Z/pZ
+     */
+    public static long resultant(long[] a, long[] b, long p)
+    {
+	if(a.length == 0 || b.length == 0)
+	    return 0;
+	long res = 1;
+	while(b.length > 1)
+	{
+	    int da = a.length - 1, db = b.length - 1;
+	    long[] r = remainder(a, b, p);
+	    if(r.length == 0)
+		return 0;
+	    // res(a, b) = (-1)^(da*db) lc(b)^(da-dr) res(b, r)
+	    res = mul(res, pow(b[db], da - (r.length - 1), p), p);
+	    if((da & db & 1) == 1)
+		res = sub(0, res, p);
+	    a = b;
+	    b = r;
+	}
+	return mul(res, pow(b[0], a.length - 1, p), p);
+    }
+
+    /**
+     * Inverse of a modulo m over Z/pZ
+     * @throws ArithmeticException if a and m are not coprime
+     */
+    public static long[] invert(long[] a, long[] m, long p)
+    {
+	long[] r0 = m, r1 = remainder(a, m, p);
+	long[] t0 = new long[0], t1 = new long[] { 1 };
+	while(r1.length > 1)
+	{
+	    long lcInv = invert(r1[r1.length - 1], p);
+	    while(r0.length >= r1.length)
+	    {
+		long c = mul(r0[r0.length - 1], lcInv, p);
+		int s = r0.length - r1.length;
+		r0 = subMultiple(r0, r1, c, s, p);
+		t0 = subMultiple(t0, t1, c, s, p);
+	    }
+	    long[] h = r0;
+	    r0 = r1;
+	    r1 = h;
+	    h = t0;
+	    t0 = t1;
+	    t1 = h;
+	}
+	if(r1.length == 0)
+	    throw new ArithmeticException("Polynomial is not invertible");
+	long c = invert(r1[0], p);
+	long[] r = new long[t1.length];
+	for(int i = 0; i < r.length; i++)
+	    r[i] = mul(t1[i], c, p);
+	return r;
+    }
+
+    /**
+     * a - c x^s b
+     */
+    private static long[] subMultiple(long[] a, long[] b, long c, int s, long p)
+    {
+	long[] r = Arrays.copyOf(a, Math.max(a.length, b.length + s));
+	for(int j = 0; j < b.length; j++)
+	    r[s + j] = sub(r[s + j], mul(c, b[j], p), p);
+	return trim(r);
+    }
+
+    /**
+     * Polynomial of degree < n through the n points (xs[i], ys[i]) over Z/pZ
+     * (Newton's divided differences)
+     * @param xs pairwise distinct points
+     */
+    public static long[] interpolate(long[] xs, long[] ys, long p)
+    {
+	int n = xs.length;
+	long[] c = ys.clone();
+	long[] d = new long[n];
+	for(int j = 1; j < n; j++)
+	{
+	    for(int i = j; i < n; i++)
+		d[i - j] = sub(xs[i], xs[i - j], p);
+	    long[] inv = invertAll(Arrays.copyOf(d, n - j), p);
+	    for(int i = n - 1; i >= j; i--)
+		c[i] = mul(sub(c[i], c[i - 1], p), inv[i - j], p);
+	}
+	// Horner on the Newton form
+	long[] r = new long[n];
+	for(int i = n - 1; i >= 0; i--)
+	{
+	    for(int k = n - 1; k > 0; k--)
+		r[k] = sub(r[k - 1], mul(xs[i], r[k], p), p);
+	    r[0] = add(mul(p - xs[i], r[0], p), c[i], p);
+	}
+	return trim(r);
+    }
+}
@@ -0,0 +1,175 @@
+package modular;
+
+import interfaces.Accumulator;
+import interfaces.Field;
+import interfaces.RingContext;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Immutable element of a prime field Z/pZ, see {@link PrimeField}.
+ *         The residue is kept in Montgomery form.
+ */
+public final class ModularInteger implements Field<ModularInteger>
+{
+    private final PrimeField field;
+    private final long value;
+
+    ModularInteger(PrimeField field, long value)
+    {
+	this.field = field;
+	this.value = value;
+    }
+
+    public PrimeField getField()
+    {
+	return field;
+    }
+
+    /**
+     * @return the residue in [0, p)
+     */
+    public long getValue()
+    {
+	return field.fromMontgomery(value);
+    }
+
+    /**
+     * @return the residue in Montgomery form, as used by the kernels
+     */
+    public long getKernelValue()
+    {
+	return value;
+    }
+
+    @Override
+    public ModularInteger NONE()
+    {
+	return field.NONE();
+    }
+
+    @Override
+    public ModularInteger ZERO()
+    {
+	return field.ZERO();
+    }
+
+    @Override
+    public ModularInteger ONE()
+    {
+	return field.ONE();
+    }
+
+    @Override
+    public ModularInteger add(ModularInteger b)
+    {
+	return new ModularInteger(field, field.add(value, b.value));
+    }
+
+    @Override
+    public ModularInteger sub(ModularInteger b)
+    {
+	return new ModularInteger(field, field.sub(value, b.value));
+    }
+
+    @Override
+    public ModularInteger mul(ModularInteger b)
+    {
+	return new ModularInteger(field, field.mul(value, b.value));
+    }
+
+    @Override
+    public ModularInteger negate()
+    {
+	return new ModularInteger(field, field.negate(value));
+    }
+
+    @Override
+    public boolean isZero()
+    {
+	return value == 0;
+    }
+
+    @Override
+    public boolean isOne()
+    {
+	return value == field.ONE().value;
+    }
+
+    @Override
+    public ModularInteger div(ModularInteger b)
+    {
+	return this.mul(b.invert());
+    }
+
+    @Override
+    public ModularInteger invert()
+    {
+	if(isZero())
+	    throw new ArithmeticException("Zero is not invertible");
+	return new ModularInteger(field, field.invert(value));
+    }
+
+    @Override
+    public ModularInteger pow(long p)
+    {
+	if(p < 0)
+	    return this.invert().pow(-p);
+	return new ModularInteger(field, field.pow(value, p));
+    }
+
+    @Override
+    public RingContext<ModularInteger> context()
+    {
+	return field.context();
+    }
+
+    /**
+     * Accumulates the residues in a primitive <tt>long<tt>
+     */
+    @Override
+    public Accumulator<ModularInteger> accumulator()
+    {
+	return new Accumulator<ModularInteger>()
+	{
+	    private long sum = 0;
+
+	    @Override
+	    public void add(ModularInteger a)
+	    {
+		sum = field.add(sum, a.value);
+	    }
+
+	    @Override
+	    public void addProduct(ModularInteger a, ModularInteger b)
+	    {
+		sum = field.add(sum, field.mul(a.value, b.value));
+	    }
+
+	    @Override
+	    public ModularInteger result()
+	    {
+		return new ModularInteger(field, sum);
+	    }
+	};
+    }
+
+    public boolean equals(Object b)
+    {
+	if(!(b instanceof ModularInteger))
+	    return false;
+	ModularInteger m = (ModularInteger) b;
+	return m.value == value && m.field.modulus() == field.modulus();
+    }
+
+    public int hashCode()
+    {
+	return Long.hashCode(value * 31 + field.modulus());
+    }
+
+    public String toString()
+    {
+	return Long.toString(getValue());
+    }
+}
@@ -0,0 +1,154 @@
+package modular;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Immutable dense polynomial over Z/pZ on a primitive array of
+ *         residues in Montgomery form. Invariant: no trailing zero
+ *         coefficients, the zero polynomial has an empty array.
+ */
+public class ModularPolynomial
+{
+    private final PrimeField field;
+    private final long[] coefs;
+
+    /**
+     * @param coefs coefficients in Montgomery form, the array is not copied
+     */
+    public ModularPolynomial(PrimeField field, long[] coefs)
+    {
+	this.field = field;
+	this.coefs = ModularArithmetic.trim(coefs);
+    }
+
+    public ModularPolynomial(PrimeField field, ModularInteger[] c)
+    {
+	long[] a = new long[c.length];
+	for(int i = 0; i < c.length; i++)
+	    a[i] = c[i].getKernelValue();
+	this.field = field;
+	this.coefs = ModularArithmetic.trim(a);
+    }
+
+    public PrimeField getField()
+    {
+	return field;
+    }
+
+    public int degree()
+    {
+	return coefs.length - 1;
+    }
+
+    public boolean isZero()
+    {
+	return coefs.length == 0;
+    }
+
+    public ModularInteger getCoef(int k)
+    {
+	return field.fromKernel(k < coefs.length ? coefs[k] : 0);
+    }
+
+    /**
+     * Coefficients in Montgomery form (a copy)
+     */
+    public long[] getKernelCoefs()
+    {
+	return coefs.clone();
+    }
+
+    public ModularInteger[] toArray()
+    {
+	ModularInteger[] c = new ModularInteger[coefs.length];
+	for(int i = 0; i < c.length; i++)
+	    c[i] = field.fromKernel(coefs[i]);
+	return c;
+    }
+
+    public ModularPolynomial add(ModularPolynomial b)
+    {
+	long[] c = Arrays.copyOf(coefs, Math.max(coefs.length, b.coefs.length));
+	for(int i = 0; i < b.coefs.length; i++)
+	    c[i] = field.add(c[i], b.coefs[i]);
+	return new ModularPolynomial(field, c);
+    }
+
+    public ModularPolynomial sub(ModularPolynomial b)
+    {
+	long[] c = Arrays.copyOf(coefs, Math.max(coefs.length, b.coefs.length));
+	for(int i = 0; i < b.coefs.length; i++)
+	    c[i] = field.sub(c[i], b.coefs[i]);
+	return new ModularPolynomial(field, c);
+    }
+
+    public ModularPolynomial mul(ModularPolynomial b)
+    {
+	return new ModularPolynomial(field, NTT.multiply(coefs, b.coefs, field));
+    }
+
+    public ModularPolynomial mul(ModularInteger c)
+    {
+	long[] r = new long[coefs.length];
+	for(int i = 0; i < r.length; i++)
+	    r[i] = field.mul(coefs[i], c.getKernelValue());
+	return new ModularPolynomial(field, r);
+    }
+
+    /**
+     * Division with remainder, via Newton inversion of the reversed divisor
+     * @return {quotient, remainder}
+     */
+    public ModularPolynomial[] divide(ModularPolynomial b)
+    {
+	if(b.isZero())
+	    throw new IllegalArgumentException("Cannot divide by 0-Polynomial");
+	int n = degree(), m = b.degree();
+	if(n < m)
+	    return new ModularPolynomial[] { new ModularPolynomial(field, new long[0]), this };
+	int k = n - m + 1;
+	long[] revA = new long[k], revB = new long[Math.min(k, m + 1)];
+	for(int i = 0; i < k; i++)
+	    revA[i] = coefs[n - i];
+	for(int i = 0; i < revB.length; i++)
+	    revB[i] = b.coefs[m - i];
+	long[] qRev = ModularSeries.divide(revA, revB, k, field);
+	long[] q = new long[k];
+	for(int i = 0; i < k; i++)
+	    q[i] = qRev[k - 1 - i];
+	long[] bq = NTT.multiply(b.coefs, q, field);
+	long[] r = new long[m];
+	for(int i = 0; i < m; i++)
+	    r[i] = field.sub(coefs[i], bq[i]);
+	return new ModularPolynomial[] { new ModularPolynomial(field, q), new ModularPolynomial(field, r) };
+    }
+
+    public ModularInteger evaluate(ModularInteger x)
+    {
+	long v = 0, xv = x.getKernelValue();
+	for(int k = coefs.length - 1; k >= 0; k--)
+	    v = field.add(field.mul(v, xv), coefs[k]);
+	return field.fromKernel(v);
+    }
+
+    public boolean equals(Object b)
+    {
+	if(!(b instanceof ModularPolynomial))
+	    return false;
+	ModularPolynomial q = (ModularPolynomial) b;
+	return q.field.modulus() == field.modulus() && Arrays.equals(q.coefs, coefs);
+    }
+
+    public int hashCode()
+    {
+	return Arrays.hashCode(coefs);
+    }
+
+    public String toString()
+    {
+	return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,63 @@
+package modular;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Truncated power series over Z/pZ as primitive arrays (entry k is the
+ *         coefficient of x^k in Montgomery form, arrays are implicitly padded
+ *         with zeros). Products use {@link NTT}, the inverse Newton
+ *         iteration.
+ */
+public class ModularSeries
+{
+    /**
+     * Product modulo x^n
+     */
+    public static long[] multiply(long[] a, long[] b, int n, PrimeField f)
+    {
+	long[] c = NTT.multiply(truncate(a, n), truncate(b, n), f);
+	return Arrays.copyOf(c, n);
+    }
+
+    /**
+     * Inverse modulo x^n
+     * @throws ArithmeticException if a[0] is zero
+     */
+    public static long[] invert(long[] a, int n, PrimeField f)
+    {
+	if(a.length == 0 || a[0] == 0)
+	    throw new ArithmeticException("Series is not invertible");
+	long[] g = new long[] { f.invert(a[0]) };
+	long one = f.toMontgomery(1);
+	int len = 1;
+	while(len < n)
+	{
+	    len = Math.min(2 * len, n);
+	    // g <- g - g*(a*g - 1) mod x^len
+	    long[] e = multiply(a, g, len, f);
+	    e[0] = f.sub(e[0], one);
+	    long[] d = multiply(g, e, len, f);
+	    long[] h = new long[len];
+	    for(int i = 0; i < len; i++)
+		h[i] = f.sub(i < g.length ? g[i] : 0, d[i]);
+	    g = h;
+	}
+	return Arrays.copyOf(g, n);
+    }
+
+    /**
+     * Quotient a/b modulo x^n
+     */
+    public static long[] divide(long[] a, long[] b, int n, PrimeField f)
+    {
+	return multiply(a, invert(b, n, f), n, f);
+    }
+
+    private static long[] truncate(long[] a, int n)
+    {
+	return a.length <= n ? a : Arrays.copyOf(a, n);
+    }
+}
@@ -0,0 +1,155 @@
+package modular;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Number theoretic transform and convolution of residue arrays in
+ *         Montgomery form. If the field has a 2-power root of unity of
+ *         sufficient order the convolution is done directly, otherwise modulo
+ *         three fixed transform primes combined by Garner's algorithm, which
+ *         is exact for inputs below 2^31 and lengths up to 2^26.
+ */
+public class NTT
+{
+    /**
+     * Convolutions where the shorter operand has at most this length are
+     * computed by the schoolbook method
+     */
+    public static int THRESHOLD = 48;
+
+    private static final PrimeField P1 = PrimeField.of(2013265921L); // 15*2^27+1
+    private static final PrimeField P2 = PrimeField.of(1811939329L); // 27*2^26+1
+    private static final PrimeField P3 = PrimeField.of(469762049L); // 7*2^26+1
+
+    /**
+     * Product of two polynomials with coefficients in Montgomery form
+     * @return array of length <tt>a.length+b.length-1<tt> (or 0)
+     */
+    public static long[] multiply(long[] a, long[] b, PrimeField f)
+    {
+	if(a.length == 0 || b.length == 0)
+	    return new long[0];
+	int n = a.length + b.length - 1;
+	if(Math.min(a.length, b.length) <= THRESHOLD)
+	    return schoolbook(a, b, f);
+	int k = 32 - Integer.numberOfLeadingZeros(n - 1);
+	if(k <= f.twoAdicity())
+	    return convolution(a, b, n, k, f);
+	if(k > 26)
+	    throw new IllegalArgumentException("Convolution length too large: " + n);
+	// three-prime convolution of the standard residues
+	long[] r1 = viaPrime(a, b, n, k, f, P1);
+	long[] r2 = viaPrime(a, b, n, k, f, P2);
+	long[] r3 = viaPrime(a, b, n, k, f, P3);
+	long q1 = P1.modulus(), q2 = P2.modulus(), q3 = P3.modulus(), p = f.modulus();
+	long q1InvQ2 = ModularArithmetic.invert(q1 % q2, q2);
+	long q1InvQ3 = ModularArithmetic.invert(q1 % q3, q3);
+	long q2InvQ3 = ModularArithmetic.invert(q2 % q3, q3);
+	long q1ModP = q1 % p, q1q2ModP = (q1 % p) * (q2 % p) % p;
+	long[] c = new long[n];
+	for(int i = 0; i < n; i++)
+	{
+	    long t1 = r1[i];
+	    long t2 = ModularArithmetic.mul(ModularArithmetic.sub(r2[i], t1 % q2, q2), q1InvQ2, q2);
+	    long t3 = ModularArithmetic.mul(ModularArithmetic.sub(r3[i], t1 % q3, q3), q1InvQ3, q3);
+	    t3 = ModularArithmetic.mul(ModularArithmetic.sub(t3, t2 % q3, q3), q2InvQ3, q3);
+	    long x = (t1 % p + q1ModP * t2 % p + q1q2ModP * t3 % p) % p;
+	    c[i] = f.toMontgomery(x);
+	}
+	return c;
+    }
+
+    /**
+     * In-place transform of an array of length 2^k (Montgomery form)
+     * @param inverse inverse transform, including the scaling by 2^(-k)
+     */
+    public static void transform(long[] a, int k, boolean inverse, PrimeField f)
+    {
+	int n = 1 << k;
+	for(int i = 1, j = 0; i < n; i++)
+	{
+	    int bit = n >> 1;
+	    for(; (j & bit) != 0; bit >>= 1)
+		j ^= bit;
+	    j ^= bit;
+	    if(i < j)
+	    {
+		long h = a[i];
+		a[i] = a[j];
+		a[j] = h;
+	    }
+	}
+	for(int s = 1; s <= k; s++)
+	{
+	    int len = 1 << s, half = len >> 1;
+	    long w = f.rootOfUnity(s);
+	    if(inverse)
+		w = f.invert(w);
+	    long[] ws = new long[half];
+	    ws[0] = f.toMontgomery(1);
+	    for(int i = 1; i < half; i++)
+		ws[i] = f.mul(ws[i - 1], w);
+	    for(int i = 0; i < n; i += len)
+	    {
+		for(int j = 0; j < half; j++)
+		{
+		    long u = a[i + j], v = f.mul(a[i + j + half], ws[j]);
+		    a[i + j] = f.add(u, v);
+		    a[i + j + half] = f.sub(u, v);
+		}
+	    }
+	}
+	if(inverse)
+	{
+	    long nInv = f.invert(f.toMontgomery(n));
+	    for(int i = 0; i < n; i++)
+		a[i] = f.mul(a[i], nInv);
+	}
+    }
+
+    private static long[] convolution(long[] a, long[] b, int n, int k, PrimeField f)
+    {
+	long[] fa = new long[1 << k], fb = new long[1 << k];
+	System.arraycopy(a, 0, fa, 0, a.length);
+	System.arraycopy(b, 0, fb, 0, b.length);
+	transform(fa, k, false, f);
+	transform(fb, k, false, f);
+	for(int i = 0; i < fa.length; i++)
+	    fa[i] = f.mul(fa[i], fb[i]);
+	transform(fa, k, true, f);
+	long[] c = new long[n];
+	System.arraycopy(fa, 0, c, 0, n);
+	return c;
+    }
+
+    /**
+     * Convolution of the standard residues modulo the transform prime q
+     * @return standard residues modulo q
+     */
+    private static long[] viaPrime(long[] a, long[] b, int n, int k, PrimeField f, PrimeField q)
+    {
+	long[] qa = new long[a.length], qb = new long[b.length];
+	for(int i = 0; i < a.length; i++)
+	    qa[i] = q.toMontgomery(f.fromMontgomery(a[i]) % q.modulus());
+	for(int i = 0; i < b.length; i++)
+	    qb[i] = q.toMontgomery(f.fromMontgomery(b[i]) % q.modulus());
+	long[] c = convolution(qa, qb, n, k, q);
+	for(int i = 0; i < n; i++)
+	    c[i] = q.fromMontgomery(c[i]);
+	return c;
+    }
+
+    private static long[] schoolbook(long[] a, long[] b, PrimeField f)
+    {
+	long[] c = new long[a.length + b.length - 1];
+	for(int i = 0; i < a.length; i++)
+	{
+	    if(a[i] == 0)
+		continue;
+	    for(int j = 0; j < b.length; j++)
+		c[i + j] = f.add(c[i + j], f.mul(a[i], b[j]));
+	}
+	return c;
+    }
+}
@@ -0,0 +1,222 @@
+package modular;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import interfaces.RingContext;
+import interfaces.RingContext.Capability;
+import number.BigRational;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         The field Z/pZ for an odd prime p < 2^31 with Montgomery arithmetic
+ *         (R = 2^32) on primitive <tt>long<tt> residues. All <tt>long<tt>
+ *         values passed to and returned by the kernel methods are in Montgomery
+ *         form a*R mod p, use {@link #toMontgomery(long)} and
+ *         {@link #fromMontgomery(long)} to convert.
+ */
+public class PrimeField
+{
+    private static final long MASK = 0xFFFFFFFFL;
+    private static final ConcurrentHashMap<Long, PrimeField> fields = new ConcurrentHashMap<>();
+
+    private final long p;
+    private final long pInv; // -p^(-1) mod 2^32
+    private final long r2; // 2^64 mod p
+    private final int twoAdicity;
+    private final long root; // primitive 2^twoAdicity-th root of unity (Montgomery form)
+    private final ModularInteger zero, one, none;
+    private final RingContext<ModularInteger> context;
+
+    public PrimeField(long p)
+    {
+	if(p <= 2 || p > Primes.MAX_PRIME || !Primes.isPrime(p))
+	    throw new IllegalArgumentException("Not an odd prime below 2^31: " + p);
+	this.p = p;
+	long inv = p;
+	for(int i = 0; i < 5; i++)
+	    inv = inv * (2 - p * inv) & MASK;
+	pInv = (-inv) & MASK;
+	long r = (1L << 32) % p;
+	r2 = r * r % p;
+	int s = 0;
+	while(((p - 1) >> s) % 2 == 0)
+	    s++;
+	twoAdicity = s;
+	root = toMontgomery(ModularArithmetic.pow(generator(), (p - 1) >> s, p));
+	zero = new ModularInteger(this, 0);
+	one = new ModularInteger(this, toMontgomery(1));
+	none = new ModularInteger(this, toMontgomery(p - 1));
+	context = new RingContext<>(zero, one, none, Capability.FAST_MULTIPLY, Capability.DOT_PRODUCT);
+    }
+
+    /**
+     * Shared instance for the prime p
+     */
+    public static PrimeField of(long p)
+    {
+	return fields.computeIfAbsent(p, PrimeField::new);
+    }
+
+    public long modulus()
+    {
+	return p;
+    }
+
+    public int twoAdicity()
+    {
+	return twoAdicity;
+    }
+
+    public ModularInteger ZERO()
+    {
+	return zero;
+    }
+
+    public ModularInteger ONE()
+    {
+	return one;
+    }
+
+    public ModularInteger NONE()
+    {
+	return none;
+    }
+
+    public RingContext<ModularInteger> context()
+    {
+	return context;
+    }
+
+    public ModularInteger element(long a)
+    {
+	a %= p;
+	return new ModularInteger(this, toMontgomery(a < 0 ? a + p : a));
+    }
+
+    /**
+     * Image of a rational number
+     * @throws ArithmeticException if p divides the denominator
+     */
+    public ModularInteger element(BigRational a)
+    {
+	long r = ModularArithmetic.reduce(a, p);
+	if(r < 0)
+	    throw new ArithmeticException("Denominator is divisible by " + p);
+	return new ModularInteger(this, toMontgomery(r));
+    }
+
+    /**
+     * Element with the given Montgomery representation
+     */
+    public ModularInteger fromKernel(long a)
+    {
+	return new ModularInteger(this, a);
+    }
+
+    /**
+     * Montgomery reduction: t*R^(-1) mod p for 0 <= t < p*2^32
+     */
+    public long reduce(long t)
+    {
+	long m = (t & MASK) * pInv & MASK;
+	long u = (t + m * p) >>> 32;
+	return u >= p ? u - p : u;
+    }
+
+    public long toMontgomery(long a)
+    {
+	return reduce(a * r2);
+    }
+
+    public long fromMontgomery(long a)
+    {
+	return reduce(a);
+    }
+
+    public long mul(long a, long b)
+    {
+	return reduce(a * b);
+    }
+
+    public long add(long a, long b)
+    {
+	long s = a + b;
+	return s >= p ? s - p : s;
+    }
+
+    public long sub(long a, long b)
+    {
+	long s = a - b;
+	return s < 0 ? s + p : s;
+    }
+
+    public long negate(long a)
+    {
+	return a == 0 ? 0 : p - a;
+    }
+
+    public long pow(long a, long e)
+    {
+	long r = toMontgomery(1);
+	while(e > 0)
+	{
+	    if((e & 1) == 1)
+		r = mul(r, a);
+	    a = mul(a, a);
+	    e >>= 1;
+	}
+	return r;
+    }
+
+    public long invert(long a)
+    {
+	return toMontgomery(ModularArithmetic.invert(fromMontgomery(a), p));
+    }
+
+    /**
+     * Primitive 2^k-th root of unity in Montgomery form
+     * @throws IllegalArgumentException if 2^k does not divide p-1
+     */
+    public long rootOfUnity(int k)
+    {
+	if(k > twoAdicity)
+	    throw new IllegalArgumentException("No 2^" + k + "-th root of unity modulo " + p);
+	long w = root;
+	for(int i = k; i < twoAdicity; i++)
+	    w = mul(w, w);
+	return w;
+    }
+
+    private long generator()
+    {
+	long n = p - 1;
+	long[] factors = new long[32];
+	int count = 0;
+	for(long q = 2; q * q <= n; q++)
+	{
+	    if(n % q == 0)
+	    {
+		factors[count++] = q;
+		while(n % q == 0)
+		    n /= q;
+	    }
+	}
+	if(n > 1)
+	    factors[count++] = n;
+	for(long g = 2;; g++)
+	{
+	    boolean generates = true;
+	    for(int i = 0; i < count && generates; i++)
+		generates = ModularArithmetic.pow(g, (p - 1) / factors[i], p) != 1;
+	    if(generates)
+		return g;
+	}
+    }
+
+    public String toString()
+    {
+	return "Z/" + p + "Z";
+    }
+}
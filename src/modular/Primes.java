@@ -0,0 +1,111 @@
+package modular;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Word-sized primes for modular algorithms. The primes are below
+ *         2^31, so that the product of two residues fits into a <tt>long<tt>.
+ *         They are enumerated in decreasing order starting at 2^31.
+ */
+public class Primes
+{
+    public static final long MAX_PRIME = (1L << 31) - 1;
+
+    private static final ArrayList<Long> primes = new ArrayList<>();
+    private static final HashMap<Integer, ArrayList<Long>> fourierPrimes = new HashMap<>();
+    private static final HashSet<Integer> exhausted = new HashSet<>();
+
+    /**
+     * The i-th word-sized prime (starting at 0)
+     * @param i index
+     * @return a prime p < 2^31
+     */
+    public static synchronized long prime(int i)
+    {
+	long p = primes.isEmpty() ? MAX_PRIME + 2 : primes.get(primes.size() - 1);
+	while(primes.size() <= i)
+	{
+	    p -= 2;
+	    while(!isPrime(p))
+		p -= 2;
+	    primes.add(p);
+	}
+	return primes.get(i);
+    }
+
+    /**
+     * The i-th prime p < 2^31 with p = 1 mod 2^k in decreasing order, so that
+     * {@link NTT} can multiply modulo p directly up to length 2^k. If there
+     * are not enough such primes, the remaining indices map to
+     * {@link #prime(int)} primes that are not of this form.
+     * @param k 1 <= k <= 30
+     */
+    public static synchronized long fourierPrime(int i, int k)
+    {
+	ArrayList<Long> list = fourierPrimes.computeIfAbsent(k, j -> new ArrayList<>());
+	long step = 1L << k;
+	long p = list.isEmpty() ? (MAX_PRIME / step + 1) * step + 1 : list.get(list.size() - 1);
+	while(list.size() <= i && !exhausted.contains(k))
+	{
+	    p -= step;
+	    while(p > step + 1 && !isPrime(p))
+		p -= step;
+	    if(p > step + 1)
+		list.add(p);
+	    else
+		exhausted.add(k);
+	}
+	if(i < list.size())
+	    return list.get(i);
+	// exhausted: continue with the general primes that are not in the list
+	int j = i - list.size();
+	for(int q = 0;; q++)
+	{
+	    long r = prime(q);
+	    if((r - 1) % step != 0 && j-- == 0)
+		return r;
+	}
+    }
+
+    /**
+     * Deterministic Miller-Rabin test for n < 2^31
+     */
+    public static boolean isPrime(long n)
+    {
+	if(n < 2)
+	    return false;
+	for(long q : new long[] { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37 })
+	{
+	    if(n % q == 0)
+		return n == q;
+	}
+	long d = n - 1;
+	int s = 0;
+	while(d % 2 == 0)
+	{
+	    d /= 2;
+	    s++;
+	}
+	for(long a : new long[] { 2, 7, 61 })
+	{
+	    long x = ModularArithmetic.pow(a, d, n);
+	    if(x == 1 || x == n - 1)
+		continue;
+	    boolean composite = true;
+	    for(int r = 1; r < s && composite; r++)
+	    {
+		x = ModularArithmetic.mul(x, x, n);
+		if(x == n - 1)
+		    composite = false;
+	    }
+	    if(composite)
+		return false;
+	}
+	return true;
+    }
+}
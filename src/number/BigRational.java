@@ -11,6 +11,8 @@ package number;
  *   -  gcd(num, den) = 1, i.e., rational number is in reduced form
  *   -  den >= 1, i.e., the denominator is always a positive integer
  *   -  0/1 is the unique representation of zero
+ *   -  num == null iff the fraction is kept in the longs n/d, which is the
+ *      case for all fractions created while both parts fit (see store)
  *
  *  % java BigRational
  *  5/6
@@ -26,8 +28,11 @@ package number;
  *
  ******************************************************************************/
 
+import interfaces.Accumulator;
 import interfaces.Field;
 import interfaces.IntegralDomain;
+import interfaces.RingContext;
+import interfaces.RingContext.Capability;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -36,18 +41,32 @@ import java.util.Objects;
 
 public class BigRational implements Comparable<BigRational>, Field<BigRational> {
 
+    // keep numerator and denominator in n and d while they fit into a long
+    // (benchmarks switch this off to compare against the BigInteger path);
+    // declared first, the constants below are created with it
+    public static boolean LONG_FAST_PATH = true;
+
     public final static BigRational ZERO = new BigRational(0);
     public final static BigRational ONE  = new BigRational(1);
     public final static BigRational TWO  = new BigRational(2);
     public final static BigRational NONE  = new BigRational(-1);
-    
+
+    private final static RingContext<BigRational> CONTEXT = new RingContext<>(ZERO, ONE, NONE,
+            Capability.DOT_PRODUCT, Capability.MODULAR_IMAGE);
+
+    private long n, d;        // numerator and denominator if num == null
     private BigInteger num;   // the numerator
     private BigInteger den;   // the denominator (always a positive integer)
 
 
     // create and initialize a new BigRational object
     public BigRational(int numerator, int denominator) {
-        this(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+        this((long) numerator, (long) denominator);
+    }
+
+    // create and initialize a new BigRational object
+    public BigRational(long numerator, long denominator) {
+        init(numerator, denominator);
     }
 
     // create and initialize a new BigRational object
@@ -71,27 +90,92 @@ public class BigRational implements Comparable<BigRational>, Field<BigRational>
         init(numerator, denominator);
     }
 
+    // already reduced, den > 0
+    private BigRational(long numerator, long denominator, boolean reduced) {
+        n = numerator;
+        d = denominator;
+    }
+
+    // already reduced, den > 0
+    private BigRational(BigInteger numerator, BigInteger denominator, boolean reduced) {
+        store(numerator, denominator);
+    }
+
     private void init(BigInteger numerator, BigInteger denominator) {
 
         // deal with x / 0
-        if (denominator.equals(BigInteger.ZERO)) {
+        if (denominator.signum() == 0) {
            throw new ArithmeticException("Denominator is zero");
         }
 
         // reduce fraction (if num = 0, will always yield den = 0)
         BigInteger g = numerator.gcd(denominator);
-        num = numerator.divide(g);
-        den = denominator.divide(g);
+        BigInteger a = numerator.divide(g);
+        BigInteger b = denominator.divide(g);
 
         // to ensure invariant that denominator is positive
-        if (den.compareTo(BigInteger.ZERO) < 0) {
-            den = den.negate();
-            num = num.negate();
+        if (b.signum() < 0) {
+            b = b.negate();
+            a = a.negate();
+        }
+        store(a, b);
+    }
+
+    private void init(long numerator, long denominator) {
+        if (denominator == 0) {
+           throw new ArithmeticException("Denominator is zero");
+        }
+        if (!LONG_FAST_PATH || numerator == Long.MIN_VALUE || denominator == Long.MIN_VALUE) {
+            init(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+            return;
+        }
+        long g = gcd(Math.abs(numerator), Math.abs(denominator));
+        n = numerator / g;
+        d = denominator / g;
+        if (d < 0) {
+            d = -d;
+            n = -n;
+        }
+    }
+
+    // store a reduced fraction, in n and d if possible (never Long.MIN_VALUE)
+    private void store(BigInteger a, BigInteger b) {
+        if (LONG_FAST_PATH && a.bitLength() < 63 && b.bitLength() < 63) {
+            n = a.longValue();
+            d = b.longValue();
+        }
+        else {
+            num = a;
+            den = b;
         }
     }
 
+    // binary gcd of non-negative longs, gcd(0, 0) = 1
+    private static long gcd(long a, long b) {
+        if (a == 0) return b == 0 ? 1 : b;
+        if (b == 0) return a;
+        int shift = Long.numberOfTrailingZeros(a | b);
+        a >>= Long.numberOfTrailingZeros(a);
+        while (b != 0) {
+            b >>= Long.numberOfTrailingZeros(b);
+            if (a > b) {
+                long t = a;
+                a = b;
+                b = t;
+            }
+            b -= a;
+        }
+        return a << shift;
+    }
+
+    private boolean isSmall() { return num == null; }
+
     // return string representation of (this)
     public String toString() { 
+        if (isSmall()) {
+            if (d == 1) return n + "";
+            else        return n + "/" + d;
+        }
         if (den.equals(BigInteger.ONE)) return num + "";
         else                            return num + "/" + den;
     }
@@ -99,13 +183,27 @@ public class BigRational implements Comparable<BigRational>, Field<BigRational>
     // return { -1, 0, + 1 } if a < b, a = b, or a > b
     public int compareTo(BigRational b) {
         BigRational a = this;
-        return a.num.multiply(b.den).compareTo(a.den.multiply(b.num));
+        if (a.isSmall() && b.isSmall()) {
+            try {
+                return Long.compare(Math.multiplyExact(a.n, b.d), Math.multiplyExact(a.d, b.n));
+            }
+            catch (ArithmeticException e) {
+                // fall through to the BigInteger comparison
+            }
+        }
+        return a.numerator().multiply(b.denominator()).compareTo(a.denominator().multiply(b.numerator()));
     }
 
     // is this BigRational negative, zero, or positive?
-    public boolean isZero()     { return num.signum() == 0; }
-    public boolean isPositive() { return num.signum() >  0; }
-    public boolean isNegative() { return num.signum() <  0; }
+    public boolean isZero()     { return signum() == 0; }
+    public boolean isPositive() { return signum() >  0; }
+    public boolean isNegative() { return signum() <  0; }
+
+    private int signum() { return isSmall() ? Long.signum(n) : num.signum(); }
+
+    // return the numerator and the (positive) denominator
+    public BigInteger numerator()   { return isSmall() ? BigInteger.valueOf(n) : num; }
+    public BigInteger denominator() { return isSmall() ? BigInteger.valueOf(d) : den; }
 
     // is this Rational object equal to y?
     public boolean equals(Object y) {
@@ -113,11 +211,16 @@ public class BigRational implements Comparable<BigRational>, Field<BigRational>
         if (y == null) return false;  
         if (y.getClass() != this.getClass()) return false;
         BigRational b = (BigRational) y;
+        if (isSmall() && b.isSmall()) return n == b.n && d == b.d;
         return compareTo(b) == 0;
     }
         
     // hashCode consistent with equals() and compareTo()
     public int hashCode() {
+        if (isSmall())
+            return 31 * Long.hashCode(n) + Long.hashCode(d);
+        if (num.bitLength() < 64 && den.bitLength() < 64)
+            return 31 * Long.hashCode(num.longValue()) + Long.hashCode(den.longValue());
         return Objects.hash(num, den);
     }
     
@@ -125,20 +228,52 @@ public class BigRational implements Comparable<BigRational>, Field<BigRational>
     // return a * b
     public BigRational times(BigRational b) {
         BigRational a = this;
-        return new BigRational(a.num.multiply(b.num), a.den.multiply(b.den));
+        if (a.isSmall() && b.isSmall()) {
+            // cancel crosswise, the result is then already reduced
+            long g1 = gcd(Math.abs(a.n), b.d);
+            long g2 = gcd(Math.abs(b.n), a.d);
+            try {
+                long numerator   = Math.multiplyExact(a.n / g1, b.n / g2);
+                long denominator = Math.multiplyExact(a.d / g2, b.d / g1);
+                if (numerator != Long.MIN_VALUE)
+                    return new BigRational(numerator, denominator, true);
+            }
+            catch (ArithmeticException e) {
+                // fall through to the BigInteger product
+            }
+        }
+        return new BigRational(a.numerator().multiply(b.numerator()), a.denominator().multiply(b.denominator()));
     }
 
     // return a + b
     public BigRational plus(BigRational b) {
         BigRational a = this;
-        BigInteger numerator   = a.num.multiply(b.den).add(b.num.multiply(a.den));
-        BigInteger denominator = a.den.multiply(b.den);
+        if (a.isSmall() && b.isSmall()) {
+            if (a.n == 0) return b;
+            if (b.n == 0) return a;
+            try {
+                long g = gcd(a.d, b.d);
+                long ad = a.d / g, bd = b.d / g;
+                long t = Math.addExact(Math.multiplyExact(a.n, bd), Math.multiplyExact(b.n, ad));
+                if (t == 0) return ZERO;
+                if (t != Long.MIN_VALUE) {
+                    long h = gcd(Math.abs(t), g);
+                    return new BigRational(t / h, Math.multiplyExact(ad, b.d / h), true);
+                }
+            }
+            catch (ArithmeticException e) {
+                // fall through to the BigInteger sum
+            }
+        }
+        BigInteger numerator   = a.numerator().multiply(b.denominator()).add(b.numerator().multiply(a.denominator()));
+        BigInteger denominator = a.denominator().multiply(b.denominator());
         return new BigRational(numerator, denominator);
     }
 
     // return -a
     public BigRational negate() {
-        return new BigRational(num.negate(), den);
+        if (isSmall()) return new BigRational(-n, d, true);
+        return new BigRational(num.negate(), den, true);
     }
 
     // return |a|
@@ -155,7 +290,9 @@ public class BigRational implements Comparable<BigRational>, Field<BigRational>
 
     // return 1 / a
     public BigRational reciprocal() {
-        return new BigRational(den, num);
+        if (isZero()) throw new ArithmeticException("Denominator is zero");
+        if (isSmall()) return n < 0 ? new BigRational(-d, -n, true) : new BigRational(d, n, true);
+        return num.signum() < 0 ? new BigRational(den.negate(), num.negate(), true) : new BigRational(den, num, true);
     }
 
     // return a / b
@@ -166,9 +303,12 @@ public class BigRational implements Comparable<BigRational>, Field<BigRational>
 
     // return double reprentation (within given precision)
     public double doubleValue() {
+        // exact operands, so the single division is correctly rounded
+        if (isSmall() && Math.abs(n) < (1L << 53) && d < (1L << 53))
+            return (double) n / d;
         int SCALE = 32;        // number of digits after the decimal place
-        BigDecimal numerator   = new BigDecimal(num);
-        BigDecimal denominator = new BigDecimal(den);
+        BigDecimal numerator   = new BigDecimal(numerator());
+        BigDecimal denominator = new BigDecimal(denominator());
         BigDecimal quotient    = numerator.divide(denominator, SCALE, RoundingMode.HALF_EVEN);
         return quotient.doubleValue();
     }
@@ -239,5 +379,111 @@ public class BigRational implements Comparable<BigRational>, Field<BigRational>
 	return this.equals(ONE);
     }
 
-    
+    @Override
+    public RingContext<BigRational> context()
+    {
+	return CONTEXT;
+    }
+
+    /**
+     * Accumulates over a common denominator and reduces only once in
+     * result()
+     */
+    @Override
+    public Accumulator<BigRational> accumulator()
+    {
+	return new Sum();
+    }
+
+    // sum N/D of products, N/D is not reduced
+    private static class Sum implements Accumulator<BigRational>
+    {
+	// reduce the BigInteger sum when D gets longer than this
+	private static final int REDUCE_BITS = 4096;
+
+	private boolean small = LONG_FAST_PATH;
+	private long ln = 0, ld = 1;
+	private BigInteger bn = BigInteger.ZERO, bd = BigInteger.ONE;
+
+	@Override
+	public void add(BigRational a)
+	{
+	    if(a.isSmall())
+		add(a.n, a.d);
+	    else
+		add(a.num, a.den);
+	}
+
+	@Override
+	public void addProduct(BigRational a, BigRational b)
+	{
+	    if(small && a.isSmall() && b.isSmall())
+	    {
+		try
+		{
+		    add(Math.multiplyExact(a.n, b.n), Math.multiplyExact(a.d, b.d));
+		    return;
+		}
+		catch(ArithmeticException e)
+		{
+		    // product does not fit, add it as BigIntegers
+		}
+	    }
+	    add(a.numerator().multiply(b.numerator()), a.denominator().multiply(b.denominator()));
+	}
+
+	private void add(long n, long d)
+	{
+	    if(small)
+	    {
+		try
+		{
+		    // common denominator lcm(ld, d)
+		    long g = gcd(ld, d);
+		    long f = d / g;
+		    long sn = Math.addExact(Math.multiplyExact(ln, f), Math.multiplyExact(n, ld / g));
+		    ld = Math.multiplyExact(ld, f);
+		    ln = sn;
+		    return;
+		}
+		catch(ArithmeticException e)
+		{
+		    promote();
+		}
+	    }
+	    add(BigInteger.valueOf(n), BigInteger.valueOf(d));
+	}
+
+	private void add(BigInteger n, BigInteger d)
+	{
+	    if(small)
+		promote();
+	    if(d.equals(bd))
+		bn = bn.add(n);
+	    else
+	    {
+		bn = bn.multiply(d).add(n.multiply(bd));
+		bd = bd.multiply(d);
+		if(bd.bitLength() > REDUCE_BITS)
+		{
+		    BigInteger g = bn.gcd(bd);
+		    bn = bn.divide(g);
+		    bd = bd.divide(g);
+		}
+	    }
+	}
+
+	private void promote()
+	{
+	    bn = BigInteger.valueOf(ln);
+	    bd = BigInteger.valueOf(ld);
+	    small = false;
+	}
+
+	@Override
+	public BigRational result()
+	{
+	    return small ? new BigRational(ln, ld) : new BigRational(bn, bd);
+	}
+    }
 }
@@ -0,0 +1,165 @@
+package numeric;
+
+import java.math.BigInteger;
+
+import number.BigRational;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Closed interval [lo, hi] of doubles. All operations round outward,
+ *         so the result of an interval operation contains the exact result of
+ *         the operation on any numbers of the operands.
+ */
+public final class Interval
+{
+    public static final Interval ZERO = new Interval(0, 0);
+    public static final Interval ONE = new Interval(1, 1);
+    public static final Interval ENTIRE = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    private final double lo, hi;
+
+    public Interval(double lo, double hi)
+    {
+	if(!(lo <= hi))
+	    throw new IllegalArgumentException("Not an interval: [" + lo + ", " + hi + "]");
+	this.lo = lo;
+	this.hi = hi;
+    }
+
+    public static Interval of(double x)
+    {
+	return new Interval(x, x);
+    }
+
+    /**
+     * Enclosure of a rational number, computed from the leading 62 bits of
+     * numerator and denominator (no BigDecimal division)
+     */
+    public static Interval of(BigRational a)
+    {
+	BigInteger n = a.numerator(), d = a.denominator();
+	if(n.signum() == 0)
+	    return ZERO;
+	int sn = Math.max(0, n.bitLength() - 62), sd = Math.max(0, d.bitLength() - 62);
+	// relative error of x below 3*2^-53 + 2^-60 < 2^-51
+	double x = n.shiftRight(sn).doubleValue() / d.shiftRight(sd).doubleValue();
+	double v = Math.scalb(x, sn - sd);
+	if(Double.isInfinite(v))
+	    return v > 0 ? new Interval(Double.MAX_VALUE, v) : new Interval(v, -Double.MAX_VALUE);
+	double r = Math.scalb(Math.abs(v), -51) + Double.MIN_VALUE;
+	return new Interval(Math.nextDown(v - r), Math.nextUp(v + r));
+    }
+
+    public double lo()
+    {
+	return lo;
+    }
+
+    public double hi()
+    {
+	return hi;
+    }
+
+    public double mid()
+    {
+	if(Double.isInfinite(lo) || Double.isInfinite(hi))
+	    return Double.isInfinite(lo) && Double.isInfinite(hi) ? 0 : Double.isInfinite(lo) ? hi : lo;
+	return lo + (hi - lo) / 2;
+    }
+
+    public double width()
+    {
+	return Math.nextUp(hi - lo);
+    }
+
+    /**
+     * Largest absolute value of an element
+     */
+    public double mag()
+    {
+	return Math.max(Math.abs(lo), Math.abs(hi));
+    }
+
+    public boolean contains(double x)
+    {
+	return lo <= x && x <= hi;
+    }
+
+    public Interval add(Interval b)
+    {
+	return new Interval(Math.nextDown(lo + b.lo), Math.nextUp(hi + b.hi));
+    }
+
+    public Interval sub(Interval b)
+    {
+	return new Interval(Math.nextDown(lo - b.hi), Math.nextUp(hi - b.lo));
+    }
+
+    public Interval negate()
+    {
+	return new Interval(-hi, -lo);
+    }
+
+    public Interval mul(Interval b)
+    {
+	double p1 = lo * b.lo, p2 = lo * b.hi, p3 = hi * b.lo, p4 = hi * b.hi;
+	if(Double.isNaN(p1) || Double.isNaN(p2) || Double.isNaN(p3) || Double.isNaN(p4))
+	    return ENTIRE; // 0 * infinity
+	double l = Math.min(Math.min(p1, p2), Math.min(p3, p4));
+	double h = Math.max(Math.max(p1, p2), Math.max(p3, p4));
+	return new Interval(Math.nextDown(l), Math.nextUp(h));
+    }
+
+    /**
+     * Quotient, the whole line if b contains zero
+     */
+    public Interval div(Interval b)
+    {
+	if(b.contains(0))
+	    return ENTIRE;
+	return mul(new Interval(Math.nextDown(1 / b.hi), Math.nextUp(1 / b.lo)));
+    }
+
+    public Interval pow(long p)
+    {
+	if(p < 0)
+	    return ONE.div(this.pow(-p));
+	Interval r = ONE, a = this;
+	while(p > 0)
+	{
+	    if((p & 1) == 1)
+		r = r.mul(a);
+	    a = a.sqr();
+	    p >>= 1;
+	}
+	return r;
+    }
+
+    private Interval sqr()
+    {
+	if(lo >= 0 || hi <= 0)
+	    return mul(this);
+	// contains zero: the square is not negative
+	return new Interval(0, Math.nextUp(Math.max(lo * lo, hi * hi)));
+    }
+
+    public boolean equals(Object b)
+    {
+	if(!(b instanceof Interval))
+	    return false;
+	Interval i = (Interval) b;
+	return i.lo == lo && i.hi == hi;
+    }
+
+    public int hashCode()
+    {
+	return Double.hashCode(lo) * 31 + Double.hashCode(hi);
+    }
+
+    public String toString()
+    {
+	return "[" + lo + ", " + hi + "]";
+    }
+}
@@ -0,0 +1,193 @@
+package numeric;
+
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import interfaces.Field;
+import interfaces.IntegralDomain;
+import number.BigRational;
+import polynomial.Polynomial;
+import rational.RationalFunction;
+import series.ExtendedPowerSeries;
+import series.PowerSeries;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Certified numeric evaluation of polynomials, rational functions and
+ *         power series at real points by Horner's rule in interval arithmetic.
+ *         The coefficients are mapped to intervals by an embedding (for
+ *         BigRational {@link Interval#of(BigRational)}), each coefficient is
+ *         converted only once, also for arrays of points. Power series are
+ *         truncated where a {@link TailBound} guarantees that the remainder is
+ *         below the requested accuracy, the bound on the remainder is part of
+ *         the resulting interval.
+ */
+public class NumericEvaluation
+{
+    /**
+     * Largest number of series coefficients used for one evaluation
+     */
+    public static int MAX_TERMS = 100000;
+
+    /**
+     * Point arrays longer than this are evaluated in parallel (if requested)
+     */
+    public static int PARALLEL_THRESHOLD = 64;
+
+    /**
+     * Bound |a_k| <= m * radius^(-k) for all coefficients a_k of a series
+     */
+    public static class TailBound
+    {
+	private final double m, radius;
+
+	public TailBound(double m, double radius)
+	{
+	    if(!(m >= 0) || !(radius > 0))
+		throw new IllegalArgumentException("Invalid tail bound");
+	    this.m = m;
+	    this.radius = radius;
+	}
+
+	/**
+	 * Number of terms after which the remainder at |x| <= r is at most eps
+	 * (at most {@link NumericEvaluation#MAX_TERMS})
+	 * @throws IllegalArgumentException if r >= radius
+	 */
+	public int terms(double r, double eps)
+	{
+	    double q = ratio(r);
+	    if(m == 0 || q == 0)
+		return 1;
+	    double n = Math.ceil(Math.log(eps * (1 - q) / m) / Math.log(q));
+	    return (int) Math.min(MAX_TERMS, Math.max(1, n + 1));
+	}
+
+	/**
+	 * Upper bound on |sum_{k>=n} a_k x^k| for |x| <= r
+	 */
+	public double remainder(double r, int n)
+	{
+	    Interval q = Interval.of(ratio(r));
+	    return Interval.of(m).mul(q.pow(n)).div(Interval.ONE.sub(q)).hi();
+	}
+
+	private double ratio(double r)
+	{
+	    double q = Interval.of(r).div(Interval.of(radius)).hi();
+	    if(!(q < 1))
+		throw new IllegalArgumentException("Point outside the disc of convergence of the bound: " + r);
+	    return q;
+	}
+    }
+
+    public static <F extends IntegralDomain<F>> Interval evaluate(Polynomial<F> p, Interval x,
+	    Function<F, Interval> embedding)
+    {
+	return horner(embed(p.toArray(), embedding), x);
+    }
+
+    public static <F extends IntegralDomain<F>> Interval[] evaluate(Polynomial<F> p, Interval[] xs,
+	    Function<F, Interval> embedding, boolean parallel)
+    {
+	Interval[] c = embed(p.toArray(), embedding);
+	return map(xs, x -> horner(c, x), parallel);
+    }
+
+    public static <F extends Field<F>> Interval evaluate(RationalFunction<F> r, Interval x,
+	    Function<F, Interval> embedding)
+    {
+	return evaluate(r.getNumerator(), x, embedding).div(evaluate(r.getDenominator(), x, embedding));
+    }
+
+    public static <F extends Field<F>> Interval[] evaluate(RationalFunction<F> r, Interval[] xs,
+	    Function<F, Interval> embedding, boolean parallel)
+    {
+	Interval[] n = embed(r.getNumerator().toArray(), embedding);
+	Interval[] d = embed(r.getDenominator().toArray(), embedding);
+	return map(xs, x -> horner(n, x).div(horner(d, x)), parallel);
+    }
+
+    /**
+     * Value of the series at x with an error of at most eps from the
+     * truncation (plus the width of the interval arithmetic)
+     */
+    public static <F extends Field<F>> Interval evaluate(PowerSeries<F> s, Interval x, TailBound bound, double eps,
+	    Function<F, Interval> embedding)
+    {
+	return evaluate(s, new Interval[] { x }, bound, eps, embedding, false)[0];
+    }
+
+    public static <F extends Field<F>> Interval[] evaluate(PowerSeries<F> s, Interval[] xs, TailBound bound,
+	    double eps, Function<F, Interval> embedding, boolean parallel)
+    {
+	double r = Arrays.stream(xs).mapToDouble(Interval::mag).max().orElse(0);
+	int n = bound.terms(r, eps);
+	Interval[] c = embed(s.getCoefs(n), embedding);
+	return map(xs, x -> {
+	    double t = bound.remainder(x.mag(), n);
+	    return horner(c, x).add(new Interval(-t, t));
+	}, parallel);
+    }
+
+    /**
+     * Value of x^order * s(x), the bound is for the main series
+     */
+    public static <F extends Field<F>> Interval evaluate(ExtendedPowerSeries<F> s, Interval x, TailBound bound,
+	    double eps, Function<F, Interval> embedding)
+    {
+	return evaluate(s, new Interval[] { x }, bound, eps, embedding, false)[0];
+    }
+
+    public static <F extends Field<F>> Interval[] evaluate(ExtendedPowerSeries<F> s, Interval[] xs, TailBound bound,
+	    double eps, Function<F, Interval> embedding, boolean parallel)
+    {
+	Interval[] v = evaluate(s.getMainSeries(), xs, bound, eps, embedding, parallel);
+	long order = s.getOrder();
+	for(int i = 0; i < v.length; i++)
+	    v[i] = v[i].mul(xs[i].pow(order));
+	return v;
+    }
+
+    public static Interval evaluate(Polynomial<BigRational> p, double x)
+    {
+	return evaluate(p, Interval.of(x), Interval::of);
+    }
+
+    public static Interval evaluate(RationalFunction<BigRational> r, double x)
+    {
+	return evaluate(r, Interval.of(x), Interval::of);
+    }
+
+    public static Interval evaluate(PowerSeries<BigRational> s, double x, TailBound bound, double eps)
+    {
+	return evaluate(s, Interval.of(x), bound, eps, Interval::of);
+    }
+
+    private static Interval horner(Interval[] c, Interval x)
+    {
+	Interval v = Interval.ZERO;
+	for(int i = c.length - 1; i >= 0; i--)
+	    v = v.mul(x).add(c[i]);
+	return v;
+    }
+
+    private static <F> Interval[] embed(F[] c, Function<F, Interval> embedding)
+    {
+	Interval[] r = new Interval[c.length];
+	for(int i = 0; i < c.length; i++)
+	    r[i] = embedding.apply(c[i]);
+	return r;
+    }
+
+    private static Interval[] map(Interval[] xs, Function<Interval, Interval> f, boolean parallel)
+    {
+	IntStream range = IntStream.range(0, xs.length);
+	if(parallel && xs.length > PARALLEL_THRESHOLD)
+	    range = range.parallel();
+	return range.mapToObj(i -> f.apply(xs[i])).toArray(Interval[]::new);
+    }
+}
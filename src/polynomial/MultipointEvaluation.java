@@ -0,0 +1,275 @@
+package polynomial;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import interfaces.Field;
+import misc.AlgebraEvents;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Evaluation of a polynomial at many points and interpolation through
+ *         many points by subproduct and remainder trees. The subproduct tree
+ *         stores the products prod (x - x_i) over ranges of points, the
+ *         remainder tree reduces f modulo these products down to short
+ *         ranges, where Horner is used. With fast multiplication and Newton
+ *         division this costs O(M(n) log n) instead of O(n^2). In parallel mode
+ *         independent subtrees are handled on the common fork/join pool.
+ *         Over the rationals the tree polynomials have much larger coefficients
+ *         than the points, so the trees pay off mainly over fields of bounded
+ *         element size.
+ */
+public class MultipointEvaluation
+{
+    /**
+     * Ranges of at most this many points are evaluated by Horner
+     */
+    public static int LEAF_SIZE = 16;
+
+    /**
+     * Ranges of at least this many points are split into parallel tasks
+     */
+    public static int PARALLEL_THRESHOLD = 256;
+
+    public static <F extends Field<F>> F[] evaluate(Polynomial<F> f, F[] points)
+    {
+	return evaluate(f, points, false);
+    }
+
+    /**
+     * Values of f at the given points
+     * @param parallel evaluate independent subtrees concurrently
+     */
+    public static <F extends Field<F>> F[] evaluate(Polynomial<F> f, F[] points, boolean parallel)
+    {
+	F[] values = Polynomial.newArray(f.obj, points.length);
+	if(points.length == 0)
+	    return values;
+	AlgebraEvents.Event event = AlgebraEvents.BATCH_EVALUATION.begin();
+	F[] c = f.toArray();
+	if(points.length <= LEAF_SIZE)
+	    horner(c, points, 0, points.length, values);
+	else
+	    descend(new SubproductTree<>(points, f.obj, parallel), c, points, values, f.obj, parallel);
+	if(event.end())
+	    event.commit("multipoint", (long) (c.length - 1), (long) points.length, AlgebraEvents.bits(c, points));
+	return values;
+    }
+
+    /**
+     * Interpolation polynomial of degree < n through (x_i, y_i)
+     * @param xs pairwise distinct points
+     * @param ys values
+     */
+    public static <F extends Field<F>> Polynomial<F> interpolate(F[] xs, F[] ys)
+    {
+	return interpolate(xs, ys, false);
+    }
+
+    public static <F extends Field<F>> Polynomial<F> interpolate(F[] xs, F[] ys, boolean parallel)
+    {
+	if(xs.length != ys.length)
+	    throw new IllegalArgumentException("Number of points and values differ");
+	if(xs.length == 0)
+	    throw new IllegalArgumentException("No interpolation points");
+	F obj = xs[0];
+	SubproductTree<F> tree = new SubproductTree<>(xs, obj, parallel);
+	// weights 1/m'(x_i) where m = prod (x - x_i)
+	F[] m = tree.poly;
+	F[] dm = Polynomial.newArray(obj, m.length - 1);
+	F k = obj.ZERO();
+	for(int i = 1; i < m.length; i++)
+	{
+	    k = k.add(obj.ONE());
+	    dm[i - 1] = m[i].mul(k);
+	}
+	// evaluated on the same tree
+	F[] w = Polynomial.newArray(obj, xs.length);
+	descend(tree, dm, xs, w, obj, parallel);
+	for(int i = 0; i < w.length; i++)
+	    if(w[i].isZero())
+		throw new IllegalArgumentException("Interpolation points are not distinct");
+	F[] c = Field.invertAll(w);
+	for(int i = 0; i < c.length; i++)
+	    c[i] = ys[i].mul(c[i]);
+	CombineTask<F> task = new CombineTask<>(tree, c, obj, parallel);
+	F[] p = parallel ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+	return new Polynomial<F>(obj, p);
+    }
+
+    /**
+     * Values of c at the points of the tree by the remainder tree
+     */
+    private static <F extends Field<F>> void descend(SubproductTree<F> tree, F[] c, F[] points, F[] values, F obj,
+	    boolean parallel)
+    {
+	RemainderTask<F> task = new RemainderTask<>(tree, c, points, values, obj, parallel);
+	if(parallel)
+	    ForkJoinPool.commonPool().invoke(task);
+	else
+	    task.compute();
+    }
+
+    private static <F extends Field<F>> void horner(F[] c, F[] points, int lo, int hi, F[] values)
+    {
+	for(int i = lo; i < hi; i++)
+	{
+	    F x = points[i];
+	    F v = x.ZERO();
+	    for(int k = c.length - 1; k >= 0; k--)
+		v = v.mul(x).add(c[k]);
+	    values[i] = v;
+	}
+    }
+
+    /**
+     * Node of the subproduct tree: poly = prod_{lo <= i < hi} (x - x_i)
+     */
+    private static class SubproductTree<F extends Field<F>>
+    {
+	final int lo, hi;
+	final F[] poly;
+	final SubproductTree<F> left, right;
+
+	SubproductTree(F[] points, F obj, boolean parallel)
+	{
+	    this(points, 0, points.length, obj, parallel);
+	}
+
+	private SubproductTree(F[] points, int lo, int hi, F obj, boolean parallel)
+	{
+	    this.lo = lo;
+	    this.hi = hi;
+	    if(hi - lo == 1)
+	    {
+		poly = Polynomial.newArray(obj, 2);
+		poly[0] = points[lo].negate();
+		poly[1] = obj.ONE();
+		left = right = null;
+		return;
+	    }
+	    int mid = (lo + hi) >>> 1;
+	    if(parallel && hi - lo >= PARALLEL_THRESHOLD)
+	    {
+		RecursiveTask<SubproductTree<F>> l = new RecursiveTask<SubproductTree<F>>()
+		{
+		    private static final long serialVersionUID = 1L;
+
+		    @Override
+		    protected SubproductTree<F> compute()
+		    {
+			return new SubproductTree<F>(points, lo, mid, obj, true);
+		    }
+		};
+		l.fork();
+		right = new SubproductTree<F>(points, mid, hi, obj, true);
+		left = l.join();
+	    }
+	    else
+	    {
+		left = new SubproductTree<F>(points, lo, mid, obj, parallel);
+		right = new SubproductTree<F>(points, mid, hi, obj, parallel);
+	    }
+	    poly = PolynomialMultiplication.multiply(left.poly, right.poly, obj);
+	}
+    }
+
+    /**
+     * Reduces f modulo the node polynomial and descends
+     */
+    private static class RemainderTask<F extends Field<F>> extends RecursiveAction
+    {
+	private static final long serialVersionUID = 1L;
+
+	final SubproductTree<F> node;
+	final F[] f, points, values;
+	final F obj;
+	final boolean parallel;
+
+	RemainderTask(SubproductTree<F> node, F[] f, F[] points, F[] values, F obj, boolean parallel)
+	{
+	    this.node = node;
+	    this.f = f;
+	    this.points = points;
+	    this.values = values;
+	    this.obj = obj;
+	    this.parallel = parallel;
+	}
+
+	@Override
+	protected void compute()
+	{
+	    F[] r = PolynomialDivision.polynomialDivision(f, node.poly, obj).getSecond();
+	    if(node.hi - node.lo <= LEAF_SIZE)
+	    {
+		horner(r, points, node.lo, node.hi, values);
+		return;
+	    }
+	    RemainderTask<F> l = new RemainderTask<>(node.left, r, points, values, obj, parallel);
+	    RemainderTask<F> h = new RemainderTask<>(node.right, r, points, values, obj, parallel);
+	    if(parallel && node.hi - node.lo >= PARALLEL_THRESHOLD)
+		invokeAll(l, h);
+	    else
+	    {
+		l.compute();
+		h.compute();
+	    }
+	}
+    }
+
+    /**
+     * Computes sum c_i * prod_{j != i} (x - x_j) over the range of a node
+     */
+    private static class CombineTask<F extends Field<F>> extends RecursiveTask<F[]>
+    {
+	private static final long serialVersionUID = 1L;
+
+	final SubproductTree<F> node;
+	final F[] c;
+	final F obj;
+	final boolean parallel;
+
+	CombineTask(SubproductTree<F> node, F[] c, F obj, boolean parallel)
+	{
+	    this.node = node;
+	    this.c = c;
+	    this.obj = obj;
+	    this.parallel = parallel;
+	}
+
+	@Override
+	protected F[] compute()
+	{
+	    if(node.left == null)
+	    {
+		F[] p = Polynomial.newArray(obj, 1);
+		p[0] = c[node.lo];
+		return p;
+	    }
+	    CombineTask<F> l = new CombineTask<>(node.left, c, obj, parallel);
+	    CombineTask<F> h = new CombineTask<>(node.right, c, obj, parallel);
+	    F[] a, b;
+	    if(parallel && node.hi - node.lo >= PARALLEL_THRESHOLD)
+	    {
+		l.fork();
+		b = h.compute();
+		a = l.join();
+	    }
+	    else
+	    {
+		a = l.compute();
+		b = h.compute();
+	    }
+	    F[] s = PolynomialMultiplication.multiply(a, node.right.poly, obj);
+	    F[] t = PolynomialMultiplication.multiply(b, node.left.poly, obj);
+	    F[] sum = s.length >= t.length ? s : t;
+	    F[] other = sum == s ? t : s;
+	    for(int i = 0; i < other.length; i++)
+		sum[i] = sum[i].add(other[i]);
+	    return sum;
+	}
+    }
+}
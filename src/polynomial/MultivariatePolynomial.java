@@ -0,0 +1,712 @@
+package polynomial;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import interfaces.Accumulator;
+import interfaces.Field;
+import interfaces.IntegralDomain;
+import interfaces.RingContext;
+import misc.Pair;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Sparse polynomial in the variables x0, ..., x(n-1) over a field F.
+ *         A monomial is packed into one long, 63/n bits per exponent with x0
+ *         in the highest bits, so comparing the packed words compares the
+ *         monomials lexicographically and multiplying monomials is an
+ *         addition. The terms are stored in two arrays sorted by decreasing
+ *         monomial. Products merge the rows a_i*b by a heap (Johnson's
+ *         algorithm), which keeps only one candidate per term of a and emits
+ *         the result already sorted.
+ *
+ *         Invariants: - no coefficient is zero, monomials strictly decrease
+ */
+public class MultivariatePolynomial<F extends Field<F>> implements IntegralDomain<MultivariatePolynomial<F>>
+{
+    private final int vars, bits;
+    private final long mask;
+    private final long[] monomials;
+    private final F[] coefs;
+    public final F obj;
+    private int hash; // 0: not computed yet
+
+    /**
+     * Zero polynomial in vars variables
+     */
+    public MultivariatePolynomial(int vars, F obj)
+    {
+	this(vars, new long[0], Polynomial.newArray(obj, 0), obj);
+    }
+
+    private MultivariatePolynomial(int vars, long[] monomials, F[] coefs, F obj)
+    {
+	if(vars < 1 || vars > 63)
+	    throw new IllegalArgumentException("Number of variables must be between 1 and 63");
+	this.vars = vars;
+	this.bits = 63 / vars;
+	this.mask = (1L << bits) - 1;
+	this.monomials = monomials;
+	this.coefs = coefs;
+	this.obj = obj;
+    }
+
+    private MultivariatePolynomial<F> create(long[] m, F[] c)
+    {
+	return new MultivariatePolynomial<F>(vars, m, c, obj);
+    }
+
+    /**
+     * c * x0^e[0] * ... * x(n-1)^e[n-1] with n = e.length
+     */
+    public static <F extends Field<F>> MultivariatePolynomial<F> monomial(F c, int... e)
+    {
+	MultivariatePolynomial<F> p = new MultivariatePolynomial<F>(e.length, c);
+	if(c.isZero())
+	    return p;
+	F[] a = Polynomial.newArray(c, 1);
+	a[0] = c;
+	return p.create(new long[] { p.pack(e) }, a);
+    }
+
+    /**
+     * Sum of the terms c[k] * x^e[k] (in any order, with repetitions) in vars
+     * variables
+     * @param e exponent vectors of length vars
+     */
+    public static <F extends Field<F>> MultivariatePolynomial<F> of(int vars, F obj, int[][] e, F[] c)
+    {
+	if(e.length != c.length)
+	    throw new IllegalArgumentException("Numbers of exponents and coefficients differ");
+	MultivariatePolynomial<F> p = new MultivariatePolynomial<F>(vars, obj);
+	Integer[] order = new Integer[e.length];
+	long[] m = new long[e.length];
+	for(int k = 0; k < e.length; k++)
+	{
+	    if(e[k].length != vars)
+		throw new IllegalArgumentException("Exponent vector of length " + e[k].length + " for " + vars
+			+ " variables");
+	    order[k] = k;
+	    m[k] = p.pack(e[k]);
+	}
+	Arrays.sort(order, (i, j) -> Long.compare(m[j], m[i]));
+	long[] rm = new long[e.length];
+	F[] rc = Polynomial.newArray(obj, e.length);
+	int n = 0;
+	for(int i = 0; i < order.length;)
+	{
+	    long mono = m[order[i]];
+	    F s = c[order[i++]];
+	    while(i < order.length && m[order[i]] == mono)
+		s = s.add(c[order[i++]]);
+	    if(s.isZero())
+		continue;
+	    rm[n] = mono;
+	    rc[n++] = s;
+	}
+	return p.create(Arrays.copyOf(rm, n), Arrays.copyOf(rc, n));
+    }
+
+    /**
+     * The variable x_i
+     */
+    public static <F extends Field<F>> MultivariatePolynomial<F> variable(int vars, int i, F obj)
+    {
+	int[] e = new int[vars];
+	e[i] = 1;
+	return monomial(obj.ONE(), e);
+    }
+
+    public static <F extends Field<F>> MultivariatePolynomial<F> constant(int vars, F c)
+    {
+	return monomial(c, new int[vars]);
+    }
+
+    private long pack(int[] e)
+    {
+	long m = 0;
+	for(int i = 0; i < vars; i++)
+	{
+	    if(e[i] < 0 || e[i] > mask)
+		throw new ArithmeticException("Exponent out of range: " + e[i]);
+	    m |= (long) e[i] << shift(i);
+	}
+	return m;
+    }
+
+    private int shift(int i)
+    {
+	return (vars - 1 - i) * bits;
+    }
+
+    private int exponent(long m, int i)
+    {
+	return (int) ((m >>> shift(i)) & mask);
+    }
+
+    public int variables()
+    {
+	return vars;
+    }
+
+    /**
+     * Number of terms
+     */
+    public int terms()
+    {
+	return coefs.length;
+    }
+
+    /**
+     * Exponents of the k-th term (in decreasing lexicographic order)
+     */
+    public int[] exponents(int k)
+    {
+	int[] e = new int[vars];
+	for(int i = 0; i < vars; i++)
+	    e[i] = exponent(monomials[k], i);
+	return e;
+    }
+
+    public F coefficient(int k)
+    {
+	return coefs[k];
+    }
+
+    public F getCoef(int... e)
+    {
+	long m = pack(e);
+	// monomials are sorted decreasingly
+	int lo = 0, hi = monomials.length - 1;
+	while(lo <= hi)
+	{
+	    int mid = (lo + hi) >>> 1;
+	    if(monomials[mid] == m)
+		return coefs[mid];
+	    if(monomials[mid] > m)
+		lo = mid + 1;
+	    else
+		hi = mid - 1;
+	}
+	return obj.ZERO();
+    }
+
+    public F getLeadingCoef()
+    {
+	return coefs.length == 0 ? obj.ZERO() : coefs[0];
+    }
+
+    /**
+     * Total degree, -1 for the zero polynomial
+     */
+    public long degree()
+    {
+	long d = -1;
+	for(long m : monomials)
+	{
+	    long s = 0;
+	    for(int i = 0; i < vars; i++)
+		s += exponent(m, i);
+	    d = Math.max(d, s);
+	}
+	return d;
+    }
+
+    /**
+     * Degree in the variable x_i, -1 for the zero polynomial
+     */
+    public long degree(int i)
+    {
+	long d = -1;
+	for(long m : monomials)
+	    d = Math.max(d, exponent(m, i));
+	return d;
+    }
+
+    /**
+     * Context of the polynomials in vars variables over the ring of obj
+     */
+    public static <F extends Field<F>> RingContext<MultivariatePolynomial<F>> context(int vars, F obj)
+    {
+	RingContext<F> c = obj.context();
+	return c.derived(new Pair<>(MultivariatePolynomial.class, vars),
+		() -> new RingContext<MultivariatePolynomial<F>>(new MultivariatePolynomial<F>(vars, obj),
+			constant(vars, c.ONE()), constant(vars, c.NONE())));
+    }
+
+    @Override
+    public RingContext<MultivariatePolynomial<F>> context()
+    {
+	return context(vars, obj);
+    }
+
+    @Override
+    public MultivariatePolynomial<F> NONE()
+    {
+	return context().NONE();
+    }
+
+    @Override
+    public MultivariatePolynomial<F> ZERO()
+    {
+	return context().ZERO();
+    }
+
+    @Override
+    public MultivariatePolynomial<F> ONE()
+    {
+	return context().ONE();
+    }
+
+    @Override
+    public MultivariatePolynomial<F> add(MultivariatePolynomial<F> b)
+    {
+	return merge(b, false);
+    }
+
+    @Override
+    public MultivariatePolynomial<F> sub(MultivariatePolynomial<F> b)
+    {
+	return merge(b, true);
+    }
+
+    private MultivariatePolynomial<F> merge(MultivariatePolynomial<F> b, boolean subtract)
+    {
+	check(b);
+	int n = coefs.length, m = b.coefs.length;
+	long[] rm = new long[n + m];
+	F[] rc = Polynomial.newArray(obj, n + m);
+	int i = 0, j = 0, k = 0;
+	while(i < n || j < m)
+	{
+	    F c;
+	    long mono;
+	    if(j == m || (i < n && monomials[i] > b.monomials[j]))
+	    {
+		mono = monomials[i];
+		c = coefs[i++];
+	    }
+	    else if(i == n || monomials[i] < b.monomials[j])
+	    {
+		mono = b.monomials[j];
+		c = subtract ? b.coefs[j++].negate() : b.coefs[j++];
+	    }
+	    else
+	    {
+		mono = monomials[i];
+		c = subtract ? coefs[i++].sub(b.coefs[j++]) : coefs[i++].add(b.coefs[j++]);
+		if(c.isZero())
+		    continue;
+	    }
+	    rm[k] = mono;
+	    rc[k++] = c;
+	}
+	return create(Arrays.copyOf(rm, k), Arrays.copyOf(rc, k));
+    }
+
+    public MultivariatePolynomial<F> mul(F c)
+    {
+	if(c.isZero())
+	    return ZERO();
+	F[] rc = Polynomial.newArray(obj, coefs.length);
+	for(int i = 0; i < rc.length; i++)
+	    rc[i] = coefs[i].mul(c);
+	return create(monomials, rc);
+    }
+
+    /**
+     * Product by Johnson's heap merge. The heap holds at most one pair (i, j)
+     * per term of this, ordered by the monomial of a_i * b_j.
+     */
+    @Override
+    public MultivariatePolynomial<F> mul(MultivariatePolynomial<F> b)
+    {
+	check(b);
+	if(coefs.length == 0 || b.coefs.length == 0)
+	    return ZERO();
+	if(coefs.length > b.coefs.length)
+	    return b.mul(this);
+	checkOverflow(b);
+	int n = coefs.length, m = b.coefs.length;
+	long[] key = new long[n];
+	int[] row = new int[n], col = new int[n];
+	int size = 0;
+	long[] rm = new long[Math.max(16, n + m)];
+	F[] rc = Polynomial.newArray(obj, rm.length);
+	int k = 0;
+	size = push(key, row, col, size, monomials[0] + b.monomials[0], 0, 0);
+	while(size > 0)
+	{
+	    long mono = key[0];
+	    Accumulator<F> sum = obj.accumulator();
+	    while(size > 0 && key[0] == mono)
+	    {
+		int i = row[0], j = col[0];
+		size = pop(key, row, col, size);
+		sum.addProduct(coefs[i], b.coefs[j]);
+		if(j + 1 < m)
+		    size = push(key, row, col, size, monomials[i] + b.monomials[j + 1], i, j + 1);
+		// row i+1 starts once a_i * b_0 is done, its terms are smaller
+		if(j == 0 && i + 1 < n)
+		    size = push(key, row, col, size, monomials[i + 1] + b.monomials[0], i + 1, 0);
+	    }
+	    F c = sum.result();
+	    if(c.isZero())
+		continue;
+	    if(k == rm.length)
+	    {
+		rm = Arrays.copyOf(rm, 2 * k);
+		rc = Arrays.copyOf(rc, 2 * k);
+	    }
+	    rm[k] = mono;
+	    rc[k++] = c;
+	}
+	return create(Arrays.copyOf(rm, k), Arrays.copyOf(rc, k));
+    }
+
+    private static int push(long[] key, int[] row, int[] col, int size, long mono, int i, int j)
+    {
+	int p = size++;
+	while(p > 0)
+	{
+	    int parent = (p - 1) >>> 1;
+	    if(key[parent] >= mono)
+		break;
+	    key[p] = key[parent];
+	    row[p] = row[parent];
+	    col[p] = col[parent];
+	    p = parent;
+	}
+	key[p] = mono;
+	row[p] = i;
+	col[p] = j;
+	return size;
+    }
+
+    private static int pop(long[] key, int[] row, int[] col, int size)
+    {
+	size--;
+	long mono = key[size];
+	int i = row[size], j = col[size];
+	int p = 0;
+	while(true)
+	{
+	    int c = 2 * p + 1;
+	    if(c >= size)
+		break;
+	    if(c + 1 < size && key[c + 1] > key[c])
+		c++;
+	    if(key[c] <= mono)
+		break;
+	    key[p] = key[c];
+	    row[p] = row[c];
+	    col[p] = col[c];
+	    p = c;
+	}
+	key[p] = mono;
+	row[p] = i;
+	col[p] = j;
+	return size;
+    }
+
+    private void check(MultivariatePolynomial<F> b)
+    {
+	if(vars != b.vars)
+	    throw new IllegalArgumentException("Different numbers of variables");
+    }
+
+    /**
+     * Exponent sums of a product must not carry into the next variable
+     */
+    private void checkOverflow(MultivariatePolynomial<F> b)
+    {
+	for(int i = 0; i < vars; i++)
+	    if(degree(i) + b.degree(i) > mask)
+		throw new ArithmeticException("Exponent overflow in x" + i);
+    }
+
+    /**
+     * Quotient and remainder of the division by g: no term of the remainder
+     * is divisible by the leading monomial of g (lexicographic order). The
+     * terms of q*g are merged by a heap as in {@link #mul}, one pair (j, i)
+     * for q_j*g_i per quotient term, so the intermediate dividends are never
+     * formed.
+     */
+    public Pair<MultivariatePolynomial<F>, MultivariatePolynomial<F>> divide(MultivariatePolynomial<F> g)
+    {
+	check(g);
+	if(g.isZero())
+	    throw new IllegalArgumentException("Cannot divide by 0-Polynomial");
+	long lm = g.monomials[0];
+	F lcInv = g.coefs[0].invert();
+	int n = coefs.length, m = g.coefs.length;
+	long[] gDeg = new long[vars];
+	for(int i = 0; i < vars; i++)
+	    gDeg[i] = g.degree(i);
+	long[] qm = new long[16], rm = new long[16];
+	F[] qc = Polynomial.newArray(obj, qm.length), rc = Polynomial.newArray(obj, rm.length);
+	long[] key = new long[16];
+	int[] row = new int[16], col = new int[16];
+	int q = 0, r = 0, size = 0;
+	for(int k = 0; k < n || size > 0;)
+	{
+	    long mono = size == 0 || (k < n && monomials[k] > key[0]) ? monomials[k] : key[0];
+	    F c = k < n && monomials[k] == mono ? coefs[k++] : obj.ZERO();
+	    if(size > 0 && key[0] == mono)
+	    {
+		Accumulator<F> sum = obj.accumulator();
+		while(size > 0 && key[0] == mono)
+		{
+		    int j = row[0], i = col[0];
+		    size = pop(key, row, col, size);
+		    sum.addProduct(qc[j], g.coefs[i]);
+		    if(i + 1 < m)
+			size = push(key, row, col, size, qm[j] + g.monomials[i + 1], j, i + 1);
+		}
+		c = c.sub(sum.result());
+	    }
+	    if(c.isZero())
+		continue;
+	    if(divides(lm, mono))
+	    {
+		if(q == qm.length)
+		{
+		    qm = Arrays.copyOf(qm, 2 * q);
+		    qc = Arrays.copyOf(qc, 2 * q);
+		}
+		qm[q] = mono - lm;
+		qc[q] = c.mul(lcInv);
+		for(int i = 0; i < vars; i++)
+		    if(exponent(qm[q], i) + gDeg[i] > mask)
+			throw new ArithmeticException("Exponent overflow in x" + i);
+		if(m > 1)
+		{
+		    if(size == key.length)
+		    {
+			key = Arrays.copyOf(key, 2 * size);
+			row = Arrays.copyOf(row, 2 * size);
+			col = Arrays.copyOf(col, 2 * size);
+		    }
+		    size = push(key, row, col, size, qm[q] + g.monomials[1], q, 1);
+		}
+		q++;
+	    }
+	    else
+	    {
+		if(r == rm.length)
+		{
+		    rm = Arrays.copyOf(rm, 2 * r);
+		    rc = Arrays.copyOf(rc, 2 * r);
+		}
+		rm[r] = mono;
+		rc[r++] = c;
+	    }
+	}
+	return new Pair<>(create(Arrays.copyOf(qm, q), Arrays.copyOf(qc, q)),
+		create(Arrays.copyOf(rm, r), Arrays.copyOf(rc, r)));
+    }
+
+    /**
+     * Quotient of an exact division
+     * @throws ArithmeticException if g does not divide this
+     */
+    public MultivariatePolynomial<F> divideExact(MultivariatePolynomial<F> g)
+    {
+	Pair<MultivariatePolynomial<F>, MultivariatePolynomial<F>> qr = divide(g);
+	if(!qr.getSecond().isZero())
+	    throw new ArithmeticException("Division is not exact");
+	return qr.getFirst();
+    }
+
+    private boolean divides(long a, long b)
+    {
+	for(int i = 0; i < vars; i++)
+	    if(exponent(a, i) > exponent(b, i))
+		return false;
+	return true;
+    }
+
+    @Override
+    public MultivariatePolynomial<F> negate()
+    {
+	F[] rc = Polynomial.newArray(obj, coefs.length);
+	for(int i = 0; i < rc.length; i++)
+	    rc[i] = coefs[i].negate();
+	return create(monomials, rc);
+    }
+
+    public MultivariatePolynomial<F> pow(long p)
+    {
+	MultivariatePolynomial<F> r = ONE(), a = this;
+	while(p > 0)
+	{
+	    if((p & 1) == 1)
+		r = r.mul(a);
+	    p >>= 1;
+	    if(p > 0)
+		a = a.mul(a);
+	}
+	return r;
+    }
+
+    /**
+     * Value at the point (x0, ..., x(n-1))
+     */
+    @SafeVarargs
+    public final F evaluate(F... x)
+    {
+	F v = obj.ZERO();
+	for(int k = 0; k < coefs.length; k++)
+	{
+	    F t = coefs[k];
+	    for(int i = 0; i < vars; i++)
+	    {
+		int e = exponent(monomials[k], i);
+		if(e > 0)
+		    t = t.mul(x[i].pow(e));
+	    }
+	    v = v.add(t);
+	}
+	return v;
+    }
+
+    @Override
+    public boolean isZero()
+    {
+	return coefs.length == 0;
+    }
+
+    @Override
+    public boolean isOne()
+    {
+	return coefs.length == 1 && monomials[0] == 0 && coefs[0].isOne();
+    }
+
+    /**
+     * The nested form: a polynomial in x0 whose coefficients are polynomials
+     * in x1 and so on, the innermost coefficients are elements of F
+     */
+    public Polynomial<?> toNested()
+    {
+	int[] idx = new int[coefs.length];
+	for(int k = 0; k < idx.length; k++)
+	    idx[k] = k;
+	return (Polynomial<?>) nest(0, idx, idx.length);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object nest(int i, int[] idx, int n)
+    {
+	if(i == vars)
+	    return n == 0 ? obj.ZERO() : coefs[idx[0]];
+	HashMap<Long, int[]> groups = new HashMap<>();
+	HashMap<Long, Integer> counts = new HashMap<>();
+	for(int k = 0; k < n; k++)
+	{
+	    long e = exponent(monomials[idx[k]], i);
+	    int[] g = groups.computeIfAbsent(e, x -> new int[n]);
+	    int c = counts.getOrDefault(e, 0);
+	    g[c] = idx[k];
+	    counts.put(e, c + 1);
+	}
+	HashMap map = new HashMap();
+	for(Long e : groups.keySet())
+	    map.put(e, nest(i + 1, groups.get(e), counts.get(e)));
+	return new Polynomial(map, (IntegralDomain) zero(i + 1));
+    }
+
+    /**
+     * Zero of the nested ring at level i
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object zero(int i)
+    {
+	return i == vars ? obj.ZERO() : Polynomial.ZERO((IntegralDomain) zero(i + 1));
+    }
+
+    /**
+     * Polynomial from the nested form (see {@link #toNested()}) with vars
+     * levels
+     */
+    public static <F extends Field<F>> MultivariatePolynomial<F> fromNested(Polynomial<?> p, int vars, F obj)
+    {
+	MultivariatePolynomial<F> r = new MultivariatePolynomial<F>(vars, obj);
+	HashMap<Long, F> terms = new HashMap<>();
+	collect(p, 0, new int[vars], r, terms);
+	long[] m = new long[terms.size()];
+	int k = 0;
+	for(Long x : terms.keySet())
+	    m[k++] = x;
+	Arrays.sort(m);
+	F[] c = Polynomial.newArray(obj, m.length);
+	long[] rm = new long[m.length];
+	for(int i = 0; i < m.length; i++)
+	{
+	    rm[i] = m[m.length - 1 - i];
+	    c[i] = terms.get(rm[i]);
+	}
+	return r.create(rm, c);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <F extends Field<F>> void collect(Object p, int i, int[] e, MultivariatePolynomial<F> r,
+	    HashMap<Long, F> terms)
+    {
+	if(i == e.length)
+	{
+	    F c = (F) p;
+	    if(!c.isZero())
+		terms.put(r.pack(e), c);
+	    return;
+	}
+	Polynomial<?> q = (Polynomial<?>) p;
+	Object[] c = q.toArray();
+	for(int k = 0; k < c.length; k++)
+	{
+	    e[i] = k;
+	    collect(c[k], i + 1, e, r, terms);
+	}
+	e[i] = 0;
+    }
+
+    public boolean equals(Object b)
+    {
+	if(!(b instanceof MultivariatePolynomial<?>))
+	    return false;
+	MultivariatePolynomial<?> p = (MultivariatePolynomial<?>) b;
+	return p == this || (p.vars == vars && Arrays.equals(p.monomials, monomials) && Arrays.equals(p.coefs, coefs));
+    }
+
+    public int hashCode()
+    {
+	int h = hash;
+	if(h == 0)
+	{
+	    h = 31 * (31 * vars + Arrays.hashCode(monomials)) + Arrays.hashCode(coefs);
+	    hash = h == 0 ? 1 : h;
+	}
+	return hash;
+    }
+
+    public String toString()
+    {
+	if(coefs.length == 0)
+	    return "0";
+	StringBuilder s = new StringBuilder();
+	for(int k = 0; k < coefs.length; k++)
+	{
+	    if(k > 0)
+		s.append(" + ");
+	    s.append(coefs[k]);
+	    for(int i = 0; i < vars; i++)
+	    {
+		int e = exponent(monomials[k], i);
+		if(e > 0)
+		    s.append("*x").append(i).append(e > 1 ? "^" + e : "");
+	    }
+	}
+	return s.toString();
+    }
+}
@@ -1,11 +1,17 @@
 package polynomial;
 
+import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Set;
 
+import interfaces.Accumulator;
 import interfaces.Field;
 import interfaces.IntegralDomain;
+import interfaces.Normalization;
+import interfaces.RingContext;
+import misc.Interner;
 
 /**
  * 
@@ -19,8 +25,18 @@ import interfaces.IntegralDomain;
  */
 public class Polynomial<F extends IntegralDomain<F>> implements IntegralDomain<Polynomial<F>>
 {
+    /**
+     * Products of polynomials with at least this many terms each that are
+     * not too sparse go through the dense kernel of
+     * {@link PolynomialMultiplication}
+     */
+    public static int DENSE_THRESHOLD = 16;
+
+    private static final Interner<Polynomial<?>> POOL = new Interner<>();
+
     private HashMap<Long, F> coefs;
     public F obj;
+    private int hash; // 0: not computed yet
 
     public Polynomial(HashMap<Long, F> coefs, F obj)
     {
@@ -68,6 +84,35 @@ public class Polynomial<F extends IntegralDomain<F>> implements IntegralDomain<P
 	return getCoef(n);
     }
 
+    /**
+     * Dense coefficient array
+     * @return array of length <tt>degree()+1<tt>, entry k is the coefficient of x^k
+     */
+    public F[] toArray()
+    {
+	F[] c = newArray(obj, (int) (degree() + 1));
+	for(int k = 0; k < c.length; k++)
+	    c[k] = getCoef(k);
+	return c;
+    }
+
+    /**
+     * Value at a point (Horner scheme)
+     */
+    public F evaluate(F x)
+    {
+	long n = degree();
+	F v = obj.ZERO();
+	for(long k = n; k >= 0; k--)
+	{
+	    v = v.mul(x);
+	    F c = coefs.get(k);
+	    if(c != null)
+		v = v.add(c);
+	}
+	return v;
+    }
+
     public Polynomial<F> add(Polynomial<F> b)
     {
 	HashMap<Long, F> map = new HashMap<Long, F>();
@@ -119,26 +164,39 @@ public class Polynomial<F extends IntegralDomain<F>> implements IntegralDomain<P
     
     public Polynomial<F> mul(Polynomial<F> b)
     {
-	HashMap<Long, F> map = new HashMap<Long, F>();
+	int n = coefs.size(), m = b.coefs.size();
+	if(n >= DENSE_THRESHOLD && m >= DENSE_THRESHOLD && 2 * (n + m) > degree() + b.degree())
+	    return PolynomialMultiplication.multiply(this, b);
+	HashMap<Long, Accumulator<F>> sums = new HashMap<Long, Accumulator<F>>();
 	Iterator<Long> aIt = this.coefs.keySet().iterator();
 	Set<Long> bSet = b.coefs.keySet();
 	while(aIt.hasNext())
 	{
 	    Long la = aIt.next();
+	    F ca = this.coefs.get(la);
 	    Iterator<Long> bIt = bSet.iterator();
 	    while(bIt.hasNext())
 	    {
 		Long lb = bIt.next();
-		F s = map.getOrDefault(la+lb, obj.ZERO()).add(this.coefs.get(la).mul(b.coefs.get(lb)));
-		if(s.isZero())
-		    map.remove(la+lb);
-		else
-		    map.put(la+lb, s);
+		sums.computeIfAbsent(la + lb, k -> obj.accumulator()).addProduct(ca, b.coefs.get(lb));
 	    }
 	}
+	HashMap<Long, F> map = new HashMap<Long, F>();
+	for(Long k : sums.keySet())
+	{
+	    F s = sums.get(k).result();
+	    if(!s.isZero())
+		map.put(k, s);
+	}
 	return new Polynomial<F>(map, obj);
     }
 
+    @Override
+    public RingContext<Polynomial<F>> context()
+    {
+	return context(obj);
+    }
+
     @Override
     public Polynomial<F> ZERO()
     {
@@ -168,9 +226,36 @@ public class Polynomial<F extends IntegralDomain<F>> implements IntegralDomain<P
 	if(!(b instanceof Polynomial<?>))
 	    return false;
 	Polynomial<?> p = (Polynomial<?>)b;
+	if(p == this)
+	    return true;
+	if(hash != 0 && p.hash != 0 && hash != p.hash)
+	    return false;
 	return p.coefs.equals(this.coefs);
     }
 
+    /**
+     * Hash of the coefficients (computed once)
+     */
+    public int hashCode()
+    {
+	int h = hash;
+	if(h == 0)
+	{
+	    h = coefs.hashCode();
+	    hash = h == 0 ? 1 : h;
+	}
+	return hash;
+    }
+
+    /**
+     * The canonical polynomial equal to this from a shared pool
+     */
+    @SuppressWarnings("unchecked")
+    public Polynomial<F> intern()
+    {
+	return (Polynomial<F>) POOL.intern(this);
+    }
+
     @Override
     public boolean isOne()
     {
@@ -193,24 +278,61 @@ public class Polynomial<F extends IntegralDomain<F>> implements IntegralDomain<P
 	return p.mul(p.getLeadingCoef().invert());
     }
     
-    public static <F extends IntegralDomain<F>> Polynomial<F> ZERO(F obj)
+    @SuppressWarnings("unchecked")
+    public static <F extends IntegralDomain<F>> F[] newArray(F obj, int n)
+    {
+	return (F[]) Array.newInstance(obj.getClass(), n);
+    }
+    
+    /**
+     * Removes trailing zero coefficients of a dense coefficient array
+     */
+    public static <F extends IntegralDomain<F>> F[] trim(F[] c)
+    {
+	int n = c.length;
+	while(n > 0 && c[n - 1].isZero())
+	    n--;
+	return n == c.length ? c : Arrays.copyOf(c, n);
+    }
+    
+    /**
+     * Context of the polynomial ring over the ring of obj, the constants are
+     * created once per coefficient ring
+     */
+    public static <F extends IntegralDomain<F>> RingContext<Polynomial<F>> context(F obj)
+    {
+	RingContext<F> c = obj.context();
+	return c.derived(Polynomial.class, () -> new RingContext<Polynomial<F>>(new Polynomial<F>(new HashMap<>(), obj),
+		constant(c.ONE(), obj), constant(c.NONE(), obj), obj instanceof Field<?> ? normalization() : null));
+    }
+
+    // gcd normalization over a field
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static <F extends IntegralDomain<F>> Normalization<Polynomial<F>> normalization()
+    {
+	return (Normalization<Polynomial<F>>) (Normalization) new PolynomialNormalization();
+    }
+
+    private static <F extends IntegralDomain<F>> Polynomial<F> constant(F c, F obj)
     {
 	HashMap<Long, F> map = new HashMap<>();
+	map.put(0L, c);
 	return new Polynomial<F>(map, obj);
     }
+
+    public static <F extends IntegralDomain<F>> Polynomial<F> ZERO(F obj)
+    {
+	return context(obj).ZERO();
+    }
     
     public static <F extends IntegralDomain<F>> Polynomial<F> ONE(F obj)
     {
-	HashMap<Long, F> map = new HashMap<>();
-	map.put(0L, obj.ONE());
-	return new Polynomial<F>(map, obj);
+	return context(obj).ONE();
     }
     
     public static <F extends IntegralDomain<F>> Polynomial<F> NONE(F obj)
     {
-	HashMap<Long, F> map = new HashMap<>();
-	map.put(0L, obj.NONE());
-	return new Polynomial<F>(map, obj);
+	return context(obj).NONE();
     }
     
     public static <F extends IntegralDomain<F>> Polynomial<F> MONOMIAL(long pow, F coef)
@@ -1,17 +1,89 @@
 package polynomial;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Hashtable;
 
+import misc.AlgebraEvents;
+import misc.Budget;
+import misc.MemoCache;
 import misc.Pair;
 import interfaces.Field;
 
 public class PolynomialDivision
 {
+    /**
+     * Dense divisions with divisor and quotient of at least this length use
+     * Newton inversion instead of the classical algorithm
+     */
+    public static int NEWTON_THRESHOLD = 32;
+
+    /**
+     * Divisors of at least this degree are handled by the dense array
+     * division
+     */
+    public static long DENSE_THRESHOLD = 16;
+
+    /**
+     * Memo table for {@link #polynomialDivision(Polynomial, Polynomial)},
+     * null (the default) disables memoization
+     */
+    public static volatile MemoCache<Pair<Polynomial<?>, Polynomial<?>>, Pair<Polynomial<?>, Polynomial<?>>> DIVISION_CACHE;
+
+    /**
+     * Memo table for {@link #expandInAPoint}, null (the default) disables
+     * memoization
+     */
+    public static volatile MemoCache<Pair<Polynomial<?>, Object>, Polynomial<?>> EXPANSION_CACHE;
+
+    /**
+     * Memoizes divisions and expansions in tables holding results with at
+     * most capacity coefficients each
+     */
+    public static void enableCache(long capacity)
+    {
+	DIVISION_CACHE = new MemoCache<>(capacity, qr -> qr.getFirst().degree() + qr.getSecond().degree() + 2);
+	EXPANSION_CACHE = new MemoCache<>(capacity, p -> p.degree() + 1);
+    }
+
+    public static void disableCache()
+    {
+	DIVISION_CACHE = null;
+	EXPANSION_CACHE = null;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     public static <F extends Field<F>> Pair<Polynomial<F>, Polynomial<F>> polynomialDivision(Polynomial<F> f, Polynomial<F> g)
+    {
+	AlgebraEvents.Event event = AlgebraEvents.DIVISION.begin();
+	MemoCache<Pair<Polynomial<?>, Polynomial<?>>, Pair<Polynomial<?>, Polynomial<?>>> cache = DIVISION_CACHE;
+	Pair<Polynomial<F>, Polynomial<F>> r;
+	if(cache == null)
+	    r = divide(f, g);
+	else
+	{
+	    long cost = (g.degree() + 1) * (Math.max(0, f.degree() - g.degree()) + 1);
+	    Pair<Polynomial<?>, Polynomial<?>> qr = cache.get(new Pair<>(f, g), () -> (Pair) divide(f, g), cost);
+	    // pairs are mutable, the cached one is not handed out
+	    r = new Pair<>((Polynomial<F>) qr.getFirst(), (Polynomial<F>) qr.getSecond());
+	}
+	if(event.end())
+	    event.commit(f.degree(), g.degree(), AlgebraEvents.bits(f, g));
+	return r;
+    }
+
+    /**
+     * Division without memoization (for the steps of Euclid's algorithm)
+     */
+    static <F extends Field<F>> Pair<Polynomial<F>, Polynomial<F>> divide(Polynomial<F> f, Polynomial<F> g)
     {
 	if(g.isZero())
 	    throw new IllegalArgumentException("Cannot divide by 0-Polynomial");
+	if(g.degree() >= DENSE_THRESHOLD && f.degree() >= g.degree())
+	{
+	    Pair<F[], F[]> qr = divideDense(f.toArray(), g.toArray(), f.obj);
+	    return new Pair<Polynomial<F>, Polynomial<F>>(new Polynomial<F>(f.obj, qr.getFirst()),
+		    new Polynomial<F>(f.obj, qr.getSecond()));
+	}
 	Polynomial<F> r = f;
 	Polynomial<F> q = f.ZERO();
 	long gDeg = g.degree();
@@ -19,6 +91,7 @@ public class PolynomialDivision
 	long rDeg = r.degree();
 	while(rDeg >= gDeg)
 	{
+	    Budget.charge(gDeg + 1);
 	    F rLc = r.getCoef(rDeg);
 	    Polynomial<F> monom = Polynomial.MONOMIAL(rDeg-gDeg, rLc.div(gLc));
 	    q = q.add(monom);
@@ -28,21 +101,125 @@ public class PolynomialDivision
 	return new Pair<Polynomial<F>, Polynomial<F>>(q, r);
     }
     
-    public static <F extends Field<F>> Polynomial<F> expandInAPoint(Polynomial<F> f, F a)
+    /**
+     * Division with remainder of dense coefficient arrays
+     * @return pair (quotient, remainder) of trimmed coefficient arrays
+     */
+    public static <F extends Field<F>> Pair<F[], F[]> polynomialDivision(F[] a, F[] b, F obj)
     {
-	Polynomial<F> q = f;
-	HashMap<Long, F> map = new HashMap<>();
-	Polynomial<F> linear = Polynomial.LINEAR(a.negate(), a.ONE());
-	Long d = 0L;
-	while(!q.isZero())
+	AlgebraEvents.Event event = AlgebraEvents.DIVISION.begin();
+	Pair<F[], F[]> r = divideDense(a, b, obj);
+	if(event.end())
+	    event.commit((long) (a.length - 1), (long) (b.length - 1), AlgebraEvents.bits(a, b));
+	return r;
+    }
+
+    private static <F extends Field<F>> Pair<F[], F[]> divideDense(F[] a, F[] b, F obj)
+    {
+	a = Polynomial.trim(a);
+	b = Polynomial.trim(b);
+	if(b.length == 0)
+	    throw new IllegalArgumentException("Cannot divide by 0-Polynomial");
+	if(a.length < b.length)
+	    return new Pair<F[], F[]>(Polynomial.newArray(obj, 0), a);
+	int n = a.length - 1, m = b.length - 1, k = n - m + 1;
+	if(m < NEWTON_THRESHOLD || k < NEWTON_THRESHOLD)
+	    return classicalDivision(a, b, obj);
+	// rev(q) = rev(a) / rev(b) mod x^k
+	F[] revA = Polynomial.newArray(obj, k);
+	for(int i = 0; i < k; i++)
+	    revA[i] = a[n - i];
+	F[] revB = Polynomial.newArray(obj, Math.min(k, b.length));
+	for(int i = 0; i < revB.length; i++)
+	    revB[i] = b[m - i];
+	F[] qRev = PolynomialMultiplication.multiply(revA, inverseSeries(revB, k, obj), obj);
+	F[] q = Polynomial.newArray(obj, k);
+	for(int i = 0; i < k; i++)
+	    q[i] = qRev[k - 1 - i];
+	F[] bq = PolynomialMultiplication.multiply(b, q, obj);
+	F[] r = Polynomial.newArray(obj, m);
+	for(int i = 0; i < m; i++)
+	    r[i] = a[i].sub(bq[i]);
+	return new Pair<F[], F[]>(q, Polynomial.trim(r));
+    }
+
+    /**
+     * Inverse of a power series modulo x^n by Newton iteration
+     * @param a coefficients, a[0] must be invertible
+     * @return array g of length n with a*g = 1 mod x^n
+     * @throws IllegalArgumentException if n < 1
+     * @throws ArithmeticException if a is empty or a[0] is zero
+     */
+    public static <F extends Field<F>> F[] inverseSeries(F[] a, int n, F obj)
+    {
+	if(n < 1)
+	    throw new IllegalArgumentException("Number of coefficients must be positive: " + n);
+	if(a.length == 0 || a[0].isZero())
+	    throw new ArithmeticException("Series is not invertible");
+	AlgebraEvents.Event event = AlgebraEvents.SERIES_INVERSION.begin();
+	F[] g = Polynomial.newArray(obj, 1);
+	g[0] = a[0].invert();
+	int len = 1;
+	while(len < n)
+	{
+	    len = Math.min(2 * len, n);
+	    Budget.charge(len);
+	    // g <- g - g*(a*g - 1) mod x^len
+	    F[] e = truncate(PolynomialMultiplication.multiply(truncate(a, len, obj), g, obj), len, obj);
+	    e[0] = e[0].sub(obj.ONE());
+	    F[] d = truncate(PolynomialMultiplication.multiply(g, e, obj), len, obj);
+	    F[] h = Polynomial.newArray(obj, len);
+	    for(int i = 0; i < len; i++)
+		h[i] = i < g.length ? g[i].sub(d[i]) : d[i].negate();
+	    g = h;
+	}
+	g = truncate(g, n, obj);
+	if(event.end())
+	    event.commit("newton", (long) n, AlgebraEvents.bits((Object[]) a));
+	return g;
+    }
+
+    /**
+     * First n coefficients of a, padded with zeros
+     */
+    static <F extends Field<F>> F[] truncate(F[] a, int n, F obj)
+    {
+	F[] b = Polynomial.newArray(obj, n);
+	for(int i = 0; i < n; i++)
+	    b[i] = i < a.length ? a[i] : obj.ZERO();
+	return b;
+    }
+
+    private static <F extends Field<F>> Pair<F[], F[]> classicalDivision(F[] a, F[] b, F obj)
+    {
+	int n = a.length - 1, m = b.length - 1;
+	F[] r = a.clone();
+	F[] q = Polynomial.newArray(obj, n - m + 1);
+	F lcInv = b[m].invert();
+	for(int i = n - m; i >= 0; i--)
 	{
-	    Pair<Polynomial<F>, Polynomial<F>> division = polynomialDivision(q, linear);
-	    Polynomial<F> r = division.getSecond();
-	    if(!r.isZero())
-		map.put(d, r.getCoef(0L));
-	    q = division.getFirst();
-	    d++;
+	    Budget.charge(m + 1);
+	    F c = r[m + i].mul(lcInv);
+	    q[i] = c;
+	    if(c.isZero())
+		continue;
+	    for(int j = 0; j <= m; j++)
+		r[i + j] = r[i + j].sub(c.mul(b[j]));
 	}
-	return new Polynomial<F>(map, f.obj);
+	return new Pair<F[], F[]>(q, Polynomial.trim(Arrays.copyOf(r, m)));
+    }
+
+    /**
+     * Expansion of f in powers of (x-a), i.e. the Taylor shift f(x+a)
+     * @see PolynomialTaylorShift
+     */
+    @SuppressWarnings("unchecked")
+    public static <F extends Field<F>> Polynomial<F> expandInAPoint(Polynomial<F> f, F a)
+    {
+	MemoCache<Pair<Polynomial<?>, Object>, Polynomial<?>> cache = EXPANSION_CACHE;
+	if(cache == null)
+	    return PolynomialTaylorShift.taylorShift(f, a);
+	long n = f.degree() + 1;
+	return (Polynomial<F>) cache.get(new Pair<>(f, a), () -> PolynomialTaylorShift.taylorShift(f, a), n * n);
     }
 }
@@ -1,11 +1,66 @@
 package polynomial;
 
 import interfaces.Field;
+import interfaces.RingContext.Capability;
+import misc.AlgebraEvents;
+import misc.Budget;
+import misc.MemoCache;
 import misc.Pair;
+import number.BigRational;
 
 public class PolynomialGCD
 {
+    /**
+     * Polynomials over BigRational whose degrees are both at least this
+     * threshold use the multi-modular gcd
+     */
+    public static long MODULAR_THRESHOLD = 8;
+
+    /**
+     * Memo table for {@link #polynomialGCD}, null (the default) disables
+     * memoization
+     */
+    public static volatile MemoCache<Pair<Polynomial<?>, Polynomial<?>>, Polynomial<?>> GCD_CACHE;
+
+    /**
+     * Memoizes gcds in a table holding results with at most capacity
+     * coefficients
+     */
+    public static void enableCache(long capacity)
+    {
+	GCD_CACHE = new MemoCache<>(capacity, p -> p.degree() + 1);
+    }
+
+    public static void disableCache()
+    {
+	GCD_CACHE = null;
+    }
+
+    @SuppressWarnings("unchecked")
     public static <F extends Field<F>> Polynomial<F> polynomialGCD(Polynomial<F> f, Polynomial<F> g)
+    {
+	AlgebraEvents.Event event = AlgebraEvents.GCD.begin();
+	MemoCache<Pair<Polynomial<?>, Polynomial<?>>, Polynomial<?>> cache = GCD_CACHE;
+	Polynomial<F> r;
+	if(cache == null)
+	    r = gcd(f, g);
+	else
+	{
+	    long cost = (f.degree() + 1) * (g.degree() + 1);
+	    r = (Polynomial<F>) cache.get(new Pair<>(f, g), () -> gcd(f, g), cost);
+	}
+	commit(event, "gcd", f, g);
+	return r;
+    }
+
+    private static void commit(AlgebraEvents.Event event, String operation, Polynomial<?> f, Polynomial<?> g)
+    {
+	if(event.end())
+	    event.commit(operation, f.degree(), g.degree(), AlgebraEvents.bits(f, g));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <F extends Field<F>> Polynomial<F> gcd(Polynomial<F> f, Polynomial<F> g)
     {
 	if(g.isZero())
 	{
@@ -14,11 +69,15 @@ public class PolynomialGCD
 	    else
 		return polynomialGCD(g, f);
 	}
+	if(Math.min(f.degree(), g.degree()) >= MODULAR_THRESHOLD && f.obj.context().has(Capability.MODULAR_IMAGE))
+	    return (Polynomial<F>) (Polynomial<?>) PolynomialModularGCD.polynomialGCD(
+		    (Polynomial<BigRational>) (Polynomial<?>) f, (Polynomial<BigRational>) (Polynomial<?>) g);
 	Polynomial<F> b = f;
 	Polynomial<F> r = g;
 	while(!r.isZero())
 	{
-	    Pair<Polynomial<F>, Polynomial<F>> qr = PolynomialDivision.polynomialDivision(b, r);
+	    Budget.check();
+	    Pair<Polynomial<F>, Polynomial<F>> qr = PolynomialDivision.divide(b, r);
 	    b = r;
 	    r = qr.getSecond();
 	}
@@ -27,12 +86,15 @@ public class PolynomialGCD
     
     public static <F extends Field<F>> Pair<Pair<Polynomial<F>, Polynomial<F>>, Polynomial<F>> polynomialExtendedGCD(Polynomial<F> f, Polynomial<F> g)
     {
+	AlgebraEvents.Event event = AlgebraEvents.GCD.begin();
+	Polynomial<F> f0 = f, g0 = g;
 	Polynomial<F> a1 = f.ONE(), a2 = f.ZERO();
 	Polynomial<F> b1 = f.ZERO(), b2 = f.ONE();
 	while(!g.isZero())
 	{
-	    Pair<Polynomial<F>, Polynomial<F>> division = PolynomialDivision.polynomialDivision(f, g);
+	    Pair<Polynomial<F>, Polynomial<F>> division = PolynomialDivision.divide(f, g);
 	    Polynomial<F> q = division.getFirst(), r = division.getSecond();
+	    Budget.charge((q.degree() + 1) * (b1.degree() + b2.degree() + 2));
 	    f = g;
 	    g = r;
 	    Polynomial<F> r1 = a1.sub(q.mul(b1)), r2 = a2.sub(q.mul(b2));
@@ -46,17 +108,21 @@ public class PolynomialGCD
 	a1 = a1.mul(lcInverse);
 	a2 = a2.mul(lcInverse);
 	f = f.mul(lcInverse);
+	commit(event, "extended gcd", f0, g0);
 	return new Pair<>(new Pair<>(a1, a2), f);
     }
     
     public static <F extends Field<F>> Pair<Polynomial<F>, Polynomial<F>> polynomialHalfExtendedGCD(Polynomial<F> f, Polynomial<F> g)
     {
+	AlgebraEvents.Event event = AlgebraEvents.GCD.begin();
+	Polynomial<F> f0 = f, g0 = g;
 	Polynomial<F> a1 = f.ONE();
 	Polynomial<F> b1 = f.ZERO();
 	while(!g.isZero())
 	{
-	    Pair<Polynomial<F>, Polynomial<F>> division = PolynomialDivision.polynomialDivision(f, g);
+	    Pair<Polynomial<F>, Polynomial<F>> division = PolynomialDivision.divide(f, g);
 	    Polynomial<F> q = division.getFirst(), r = division.getSecond();
+	    Budget.charge((q.degree() + 1) * (b1.degree() + 1));
 	    f = g;
 	    g = r;
 	    Polynomial<F> r1 = a1.sub(q.mul(b1));
@@ -67,6 +133,7 @@ public class PolynomialGCD
 	F lcInverse = f.getLeadingCoef().invert();
 	a1 = a1.mul(lcInverse);
 	f = f.mul(lcInverse);
+	commit(event, "half extended gcd", f0, g0);
 	return new Pair<>(a1, f);
     }
 }
@@ -0,0 +1,129 @@
+package polynomial;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.stream.IntStream;
+
+import misc.Budget;
+import modular.ChineseRemainder;
+import modular.ModularArithmetic;
+import modular.Primes;
+import number.BigRational;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Multi-modular gcd of polynomials over the rationals. The monic gcd is
+ *         computed modulo word-sized primes (in parallel), the images are
+ *         combined by Chinese remaindering and rational reconstruction and the
+ *         candidate is verified by trial division. No rational number of the
+ *         Euclidean remainder sequence is ever formed.
+ */
+public class PolynomialModularGCD
+{
+    /**
+     * Number of primes handled per parallel round
+     */
+    public static int BATCH_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    public static Polynomial<BigRational> polynomialGCD(Polynomial<BigRational> f, Polynomial<BigRational> g)
+    {
+	if(f.isZero() || g.isZero())
+	    return PolynomialGCD.polynomialGCD(f, g);
+	if(f.degree() == 0 || g.degree() == 0)
+	    return f.ONE();
+	int primeIndex = 0;
+	long gcdDeg = Math.min(f.degree(), g.degree()) + 1;
+	BigInteger modulus = BigInteger.ONE;
+	BigInteger[] residues = null;
+	Polynomial<BigRational> candidate = null;
+	while(true)
+	{
+	    // the images are computed by other threads, the batch is charged here
+	    Budget.charge(BATCH_SIZE * (f.degree() + 1) * (g.degree() + 1));
+	    final int first = primeIndex;
+	    long[][] images = IntStream.range(0, BATCH_SIZE).parallel()
+		    .mapToObj(i -> modularImage(f, g, Primes.prime(first + i)))
+		    .toArray(long[][]::new);
+	    for(int i = 0; i < images.length; i++)
+	    {
+		long[] h = images[i];
+		if(h == null || h.length - 1 > gcdDeg)
+		    continue;
+		long p = Primes.prime(first + i);
+		if(h.length - 1 < gcdDeg)
+		{
+		    // all previous primes were unlucky
+		    if(h.length == 1)
+			return f.ONE();
+		    gcdDeg = h.length - 1;
+		    modulus = BigInteger.ONE;
+		    residues = new BigInteger[h.length];
+		    for(int k = 0; k < h.length; k++)
+			residues[k] = BigInteger.ZERO;
+		    candidate = null;
+		}
+		for(int k = 0; k < h.length; k++)
+		    residues[k] = ChineseRemainder.combine(residues[k], modulus, h[k], p);
+		modulus = modulus.multiply(BigInteger.valueOf(p));
+	    }
+	    primeIndex += BATCH_SIZE;
+	    if(residues == null)
+		continue;
+	    Polynomial<BigRational> h = reconstruct(residues, modulus);
+	    if(h != null && h.equals(candidate) && divides(h, f) && divides(h, g))
+		return h;
+	    candidate = h;
+	}
+    }
+
+    /**
+     * Monic gcd of the images of f and g modulo p
+     * @return null if p divides a denominator or a leading coefficient
+     */
+    private static long[] modularImage(Polynomial<BigRational> f, Polynomial<BigRational> g, long p)
+    {
+	long[] a = reduce(f, p), b = reduce(g, p);
+	if(a == null || b == null)
+	    return null;
+	return ModularArithmetic.gcd(a, b, p);
+    }
+
+    private static long[] reduce(Polynomial<BigRational> f, long p)
+    {
+	int n = (int) f.degree();
+	long[] a = new long[n + 1];
+	for(int k = 0; k <= n; k++)
+	{
+	    BigRational c = f.getCoef(k);
+	    if(c.isZero())
+		continue;
+	    a[k] = ModularArithmetic.reduce(c, p);
+	    if(a[k] < 0)
+		return null;
+	}
+	if(a[n] == 0)
+	    return null;
+	return a;
+    }
+
+    private static Polynomial<BigRational> reconstruct(BigInteger[] residues, BigInteger modulus)
+    {
+	HashMap<Long, BigRational> map = new HashMap<>();
+	for(int k = 0; k < residues.length; k++)
+	{
+	    BigRational c = ChineseRemainder.rationalReconstruction(residues[k], modulus);
+	    if(c == null)
+		return null;
+	    if(!c.isZero())
+		map.put(Long.valueOf(k), c);
+	}
+	return new Polynomial<BigRational>(map, BigRational.ZERO);
+    }
+
+    private static boolean divides(Polynomial<BigRational> h, Polynomial<BigRational> f)
+    {
+	return PolynomialDivision.polynomialDivision(f, h).getSecond().isZero();
+    }
+}
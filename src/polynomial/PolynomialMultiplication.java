@@ -0,0 +1,145 @@
+package polynomial;
+
+import interfaces.Accumulator;
+import interfaces.IntegralDomain;
+import interfaces.RingContext.Capability;
+import modular.ModularInteger;
+import modular.NTT;
+import modular.PrimeField;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Multiplication of dense coefficient arrays (entry k is the
+ *         coefficient of x^k). Short operands are multiplied by the schoolbook
+ *         method, longer ones by Karatsuba. Over prime fields
+ *         ({@link ModularInteger}) long operands go through the primitive
+ *         {@link NTT} kernel instead.
+ */
+public class PolynomialMultiplication
+{
+    public static int KARATSUBA_THRESHOLD = 32;
+
+    /**
+     * Product of two dense coefficient arrays
+     * @return array of length <tt>a.length+b.length-1<tt> (or 0 if an operand is empty)
+     */
+    public static <F extends IntegralDomain<F>> F[] multiply(F[] a, F[] b, F obj)
+    {
+	if(a.length == 0 || b.length == 0)
+	    return Polynomial.newArray(obj, 0);
+	if(a.length < b.length)
+	{
+	    F[] h = a;
+	    a = b;
+	    b = h;
+	}
+	if(b.length > NTT.THRESHOLD && obj.context().has(Capability.FAST_MULTIPLY))
+	    return multiplyModular(a, b, obj);
+	if(b.length <= KARATSUBA_THRESHOLD)
+	    return schoolbook(a, 0, a.length, b, 0, b.length, obj);
+	if(a.length == b.length)
+	    return karatsuba(a, 0, b, 0, a.length, obj);
+	// unbalanced: cut the longer operand into pieces of the length of the shorter
+	int n = b.length;
+	F[] c = zeros(obj, a.length + n - 1);
+	F[] chunk = zeros(obj, n);
+	for(int s = 0; s < a.length; s += n)
+	{
+	    int len = Math.min(n, a.length - s);
+	    System.arraycopy(a, s, chunk, 0, len);
+	    for(int i = len; i < n; i++)
+		chunk[i] = obj.ZERO();
+	    F[] p = karatsuba(chunk, 0, b, 0, n, obj);
+	    for(int i = 0; i < p.length && s + i < c.length; i++)
+		c[s + i] = c[s + i].add(p[i]);
+	}
+	return c;
+    }
+
+    /**
+     * Product of f and g
+     */
+    public static <F extends IntegralDomain<F>> Polynomial<F> multiply(Polynomial<F> f, Polynomial<F> g)
+    {
+	return new Polynomial<F>(f.obj, multiply(f.toArray(), g.toArray(), f.obj));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <F extends IntegralDomain<F>> F[] multiplyModular(F[] a, F[] b, F obj)
+    {
+	PrimeField field = ((ModularInteger) obj).getField();
+	long[] c = NTT.multiply(toKernel(a), toKernel(b), field);
+	F[] r = Polynomial.newArray(obj, c.length);
+	for(int i = 0; i < c.length; i++)
+	    r[i] = (F) field.fromKernel(c[i]);
+	return r;
+    }
+
+    private static <F extends IntegralDomain<F>> long[] toKernel(F[] a)
+    {
+	long[] k = new long[a.length];
+	for(int i = 0; i < a.length; i++)
+	    k[i] = ((ModularInteger) a[i]).getKernelValue();
+	return k;
+    }
+
+    static <F extends IntegralDomain<F>> F[] zeros(F obj, int n)
+    {
+	F[] c = Polynomial.newArray(obj, n);
+	F zero = obj.ZERO();
+	for(int i = 0; i < n; i++)
+	    c[i] = zero;
+	return c;
+    }
+
+    private static <F extends IntegralDomain<F>> F[] schoolbook(F[] a, int aOff, int aLen, F[] b, int bOff,
+	    int bLen, F obj)
+    {
+	F[] c = Polynomial.newArray(obj, aLen + bLen - 1);
+	for(int k = 0; k < c.length; k++)
+	{
+	    // c[k] = sum a[i]*b[k-i] in one accumulator
+	    Accumulator<F> sum = obj.accumulator();
+	    for(int i = Math.max(0, k - bLen + 1); i <= Math.min(k, aLen - 1); i++)
+	    {
+		F ai = a[aOff + i], bj = b[bOff + k - i];
+		if(!ai.isZero() && !bj.isZero())
+		    sum.addProduct(ai, bj);
+	    }
+	    c[k] = sum.result();
+	}
+	return c;
+    }
+
+    private static <F extends IntegralDomain<F>> F[] karatsuba(F[] a, int aOff, F[] b, int bOff, int n, F obj)
+    {
+	if(n <= KARATSUBA_THRESHOLD)
+	    return schoolbook(a, aOff, n, b, bOff, n, obj);
+	int m = n / 2, h = n - m;
+	F[] low = karatsuba(a, aOff, b, bOff, m, obj);
+	F[] high = karatsuba(a, aOff + m, b, bOff + m, h, obj);
+	F[] as = Polynomial.newArray(obj, h), bs = Polynomial.newArray(obj, h);
+	for(int i = 0; i < h; i++)
+	{
+	    as[i] = i < m ? a[aOff + i].add(a[aOff + m + i]) : a[aOff + m + i];
+	    bs[i] = i < m ? b[bOff + i].add(b[bOff + m + i]) : b[bOff + m + i];
+	}
+	F[] mid = karatsuba(as, 0, bs, 0, h, obj);
+	F[] c = zeros(obj, 2 * n - 1);
+	for(int i = 0; i < low.length; i++)
+	{
+	    c[i] = c[i].add(low[i]);
+	    mid[i] = mid[i].sub(low[i]);
+	}
+	for(int i = 0; i < high.length; i++)
+	{
+	    c[2 * m + i] = c[2 * m + i].add(high[i]);
+	    mid[i] = mid[i].sub(high[i]);
+	}
+	for(int i = 0; i < mid.length; i++)
+	    c[m + i] = c[m + i].add(mid[i]);
+	return c;
+    }
+}
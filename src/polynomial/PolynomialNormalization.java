@@ -0,0 +1,40 @@
+package polynomial;
+
+import interfaces.Field;
+import interfaces.Normalization;
+
+/**
+ * 
+ * @author KhAKhA
+ *
+ *         Normalization of polynomials over a field: monic gcd, canonical
+ *         associates are monic.
+ */
+class PolynomialNormalization<F extends Field<F>> implements Normalization<Polynomial<F>>
+{
+    @Override
+    public Polynomial<F> gcd(Polynomial<F> a, Polynomial<F> b)
+    {
+	return PolynomialGCD.polynomialGCD(a, b);
+    }
+
+    @Override
+    public Polynomial<F> divide(Polynomial<F> a, Polynomial<F> b)
+    {
+	if(b.degree() == 0)
+	    return a.mul(b.getLeadingCoef().invert());
+	return PolynomialDivision.polynomialDivision(a, b).getFirst();
+    }
+
+    @Override
+    public Polynomial<F> unit(Polynomial<F> a)
+    {
+	return a.isZero() ? a.ONE() : Polynomial.MONOMIAL(0, a.getLeadingCoef());
+    }
+
+    @Override
+    public long size(Polynomial<F> a)
+    {
+	return a.degree() + 1;
+    }
+}
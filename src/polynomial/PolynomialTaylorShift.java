@@ -0,0 +1,101 @@
+package polynomial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import interfaces.IntegralDomain;
+import misc.AlgebraEvents;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Taylor shift f(x) -> f(x+a). Short polynomials are shifted in place
+ *         by the Horner scheme (O(n^2) ring operations, no intermediate
+ *         polynomials), long ones by divide and conquer: f = f0 + x^m f1 gives
+ *         f(x+a) = f0(x+a) + (x+a)^m f1(x+a), with the powers (x+a)^(2^k)
+ *         computed once by squaring, i.e. O(M(n) log n).
+ */
+public class PolynomialTaylorShift
+{
+    public static int HORNER_THRESHOLD = 64;
+
+    /**
+     * @return the polynomial f(x+a)
+     */
+    public static <F extends IntegralDomain<F>> Polynomial<F> taylorShift(Polynomial<F> f, F a)
+    {
+	if(f.isZero())
+	    return f;
+	return new Polynomial<F>(f.obj, taylorShift(f.toArray(), a, f.obj));
+    }
+
+    /**
+     * Taylor shift of a dense coefficient array
+     * @return new array c' with sum c'_k x^k = sum c_k (x+a)^k
+     */
+    public static <F extends IntegralDomain<F>> F[] taylorShift(F[] c, F a, F obj)
+    {
+	AlgebraEvents.Event event = AlgebraEvents.TAYLOR_SHIFT.begin();
+	F[] r = c.length <= HORNER_THRESHOLD ? horner(c.clone(), a) : shift(c, a, obj);
+	if(event.end())
+	    event.commit((long) (c.length - 1), AlgebraEvents.bits(c, a));
+	return r;
+    }
+
+    private static <F extends IntegralDomain<F>> F[] shift(F[] c, F a, F obj)
+    {
+	ArrayList<F[]> powers = new ArrayList<>();
+	F[] p = Polynomial.newArray(obj, 2);
+	p[0] = a;
+	p[1] = obj.ONE();
+	int len = 1;
+	while(len < c.length)
+	{
+	    powers.add(p);
+	    p = PolynomialMultiplication.multiply(p, p, obj);
+	    len *= 2;
+	}
+	return divideAndConquer(c, 0, len, powers.size(), powers, a, obj);
+    }
+
+    /**
+     * In-place Horner shift
+     */
+    static <F extends IntegralDomain<F>> F[] horner(F[] c, F a)
+    {
+	int n = c.length - 1;
+	if(a.isZero())
+	    return c;
+	for(int i = 0; i < n; i++)
+	{
+	    for(int j = n - 1; j >= i; j--)
+	    {
+		if(!c[j + 1].isZero())
+		    c[j] = c[j].add(a.mul(c[j + 1]));
+	    }
+	}
+	return c;
+    }
+
+    /**
+     * Shift of the block c[off, off+len) with len = 2^level, powers.get(k) =
+     * (x+a)^(2^k)
+     */
+    private static <F extends IntegralDomain<F>> F[] divideAndConquer(F[] c, int off, int len, int level,
+	    ArrayList<F[]> powers, F a, F obj)
+    {
+	int end = Math.min(off + len, c.length);
+	if(len <= HORNER_THRESHOLD)
+	    return horner(Arrays.copyOfRange(c, off, end), a);
+	int m = len / 2;
+	F[] low = divideAndConquer(c, off, m, level - 1, powers, a, obj);
+	if(off + m >= c.length)
+	    return low;
+	F[] high = divideAndConquer(c, off + m, m, level - 1, powers, a, obj);
+	F[] r = PolynomialMultiplication.multiply(high, powers.get(level - 1), obj);
+	for(int i = 0; i < low.length; i++)
+	    r[i] = r[i].add(low[i]);
+	return r;
+    }
+}
@@ -0,0 +1,160 @@
+package rational;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.Function;
+
+import interfaces.Accumulator;
+import interfaces.Field;
+import misc.Pair;
+import polynomial.Polynomial;
+import polynomial.PolynomialDivision;
+import series.PowerSeries;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Rational reconstruction of power series from a prefix of their
+ *         coefficients. A series found to be rational can be replaced by
+ *         {@link #series(RationalFunction)}, whose coefficients follow the
+ *         linear recurrence of the denominator at O(deg) cost per coefficient.
+ */
+public class PadeApproximation
+{
+    /**
+     * Pade approximant p/q of type (m, n): deg p <= m, deg q <= n and s*q = p
+     * modulo x^(m+n+1) (extended Euclidean algorithm stopped at deg <= m)
+     * @throws ArithmeticException if no approximant with q(0) != 0 exists
+     */
+    public static <F extends Field<F>> RationalFunction<F> pade(PowerSeries<F> s, int m, int n)
+    {
+	F obj = s.getCoef(0L);
+	Polynomial<F> f = Polynomial.MONOMIAL(m + n + 1, obj.ONE());
+	Polynomial<F> g = new Polynomial<F>(obj, s.getCoefs(m + n + 1));
+	Polynomial<F> b1 = f.ZERO(), b2 = f.ONE();
+	while(g.degree() > m)
+	{
+	    Pair<Polynomial<F>, Polynomial<F>> division = PolynomialDivision.polynomialDivision(f, g);
+	    f = g;
+	    g = division.getSecond();
+	    Polynomial<F> r = b1.sub(division.getFirst().mul(b2));
+	    b1 = b2;
+	    b2 = r;
+	}
+	if(b2.getCoef(0).isZero())
+	    throw new ArithmeticException("No Pade approximant of type (" + m + ", " + n + ")");
+	return new RationalFunction<F>(g, b2);
+    }
+
+    /**
+     * Shortest linear recurrence of the sequence s (Berlekamp-Massey)
+     * @return pair of the connection polynomial c with c(0) = 1 and the length
+     *         L of the recurrence: sum c_i s_(k-i) = 0 for L <= k < s.length
+     */
+    public static <F extends Field<F>> Pair<Polynomial<F>, Integer> berlekampMassey(F[] s, F obj)
+    {
+	F[] c = Polynomial.newArray(obj, s.length + 1), b = Polynomial.newArray(obj, s.length + 1);
+	Arrays.fill(c, obj.ZERO());
+	Arrays.fill(b, obj.ZERO());
+	c[0] = obj.ONE();
+	b[0] = obj.ONE();
+	F last = obj.ONE();
+	int length = 0, shift = 1;
+	for(int k = 0; k < s.length; k++)
+	{
+	    Accumulator<F> sum = obj.accumulator();
+	    for(int i = 0; i <= length; i++)
+		sum.addProduct(c[i], s[k - i]);
+	    F d = sum.result();
+	    if(d.isZero())
+	    {
+		shift++;
+		continue;
+	    }
+	    F t = d.div(last);
+	    F[] old = c.clone();
+	    // c <- c - (d/last) x^shift b
+	    for(int i = shift; i < c.length; i++)
+		c[i] = c[i].sub(t.mul(b[i - shift]));
+	    if(2 * length <= k)
+	    {
+		length = k + 1 - length;
+		b = old;
+		last = d;
+		shift = 1;
+	    }
+	    else
+		shift++;
+	}
+	return new Pair<>(new Polynomial<F>(obj, c), length);
+    }
+
+    /**
+     * Rational function guessed from the first terms coefficients of s and
+     * checked against the next window coefficients
+     * @return null if no recurrence of length at most terms/2 fits, or if the
+     *         verification window contradicts it
+     */
+    public static <F extends Field<F>> RationalFunction<F> guess(PowerSeries<F> s, int terms, int window)
+    {
+	F obj = s.getCoef(0L);
+	F[] a = s.getCoefs(terms + window);
+	Pair<Polynomial<F>, Integer> recurrence = berlekampMassey(Arrays.copyOf(a, terms), obj);
+	Polynomial<F> c = recurrence.getFirst();
+	int length = recurrence.getSecond();
+	if(2 * length > terms)
+	    return null;
+	F[] cs = c.toArray();
+	for(int k = terms; k < a.length; k++)
+	{
+	    Accumulator<F> sum = obj.accumulator();
+	    for(int i = 0; i < cs.length; i++)
+		sum.addProduct(cs[i], a[k - i]);
+	    if(!sum.result().isZero())
+		return null;
+	}
+	// numerator: s*c modulo x^length
+	F[] p = Polynomial.newArray(obj, length);
+	for(int k = 0; k < length; k++)
+	{
+	    Accumulator<F> sum = obj.accumulator();
+	    for(int i = 0; i < cs.length && i <= k; i++)
+		sum.addProduct(cs[i], a[k - i]);
+	    p[k] = sum.result();
+	}
+	return new RationalFunction<F>(new Polynomial<F>(obj, p), c);
+    }
+
+    /**
+     * Power series of f at 0, coefficient k computed from the previous deg(q)
+     * by the recurrence of the denominator q
+     * @throws IllegalArgumentException if q(0) = 0
+     */
+    public static <F extends Field<F>> PowerSeries<F> series(RationalFunction<F> f)
+    {
+	Polynomial<F> num = f.getNumerator(), den = f.getDenominator();
+	F obj = den.obj;
+	if(den.getCoef(0).isZero())
+	    throw new IllegalArgumentException("Denominator vanishes at 0");
+	F inverse = den.getCoef(0).invert();
+	F[] p = num.mul(inverse).toArray(), q = den.mul(inverse.negate()).toArray();
+	HashMap<Long, F> map = new HashMap<>();
+	long[] computed = { 0 };
+	// coefficients are computed in order so that no recursion is needed
+	Function<Long, F> g = k -> {
+	    for(long n = computed[0]; n <= k; n++)
+	    {
+		Accumulator<F> sum = obj.accumulator();
+		if(n < p.length)
+		    sum.add(p[(int) n]);
+		for(int i = 1; i < q.length && i <= n; i++)
+		    sum.addProduct(q[i], map.get(n - i));
+		map.put(n, sum.result());
+	    }
+	    computed[0] = Math.max(computed[0], k + 1);
+	    return map.get(k);
+	};
+	return new PowerSeries<F>(g, map, obj);
+    }
+}
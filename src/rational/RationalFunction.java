@@ -1,131 +1,374 @@
 package rational;
 
+import polynomial.MultipointEvaluation;
 import polynomial.Polynomial;
 import polynomial.PolynomialDivision;
 import polynomial.PolynomialGCD;
 import interfaces.Field;
+import interfaces.Normalization.Mode;
+import interfaces.RingContext;
 
+/**
+ * 
+ * @author KhAKhA
+ *
+ *         Rational functions over a field. The normal form has coprime
+ *         numerator and denominator and a monic numerator (denominator 1 for
+ *         zero). Products and sums of normalized functions are computed by
+ *         Henrici's formulas, which take gcds of the factors instead of the
+ *         full products. In the modes LAZY and NEVER normalization is
+ *         deferred until the normal form is needed (equals, toString, the
+ *         getters) or, for LAZY, until the degrees exceed SIZE_THRESHOLD and
+ *         have doubled since the last normalization. Numerator and
+ *         denominator are published together as one immutable fraction, so
+ *         threads sharing a function never see the numerator of one form with
+ *         the denominator of another; concurrent normalizations compute the
+ *         same normal form.
+ */
 public class RationalFunction<F extends Field<F>> implements Field<RationalFunction<F>>
 {
-    Polynomial<F> num, den;
-    
+    /**
+     * Mode of functions created by the public constructor
+     */
+    public static Mode DEFAULT_MODE = Mode.EAGER;
+
+    /**
+     * Lazy mode: functions whose degrees add up to less are not normalized
+     */
+    public static long SIZE_THRESHOLD = 32;
+
+    /**
+     * Numerator and denominator, replaced as a whole by the normal form
+     */
+    private static class Fraction<F extends Field<F>>
+    {
+	final Polynomial<F> num, den;
+	final boolean normalized;
+	final long limit; // lazy mode: normalize when the degrees exceed this
+
+	Fraction(Polynomial<F> num, Polynomial<F> den, boolean normalized, long limit)
+	{
+	    this.num = num;
+	    this.den = den;
+	    this.normalized = normalized;
+	    this.limit = limit;
+	}
+    }
+
+    private final Mode mode;
+    private volatile Fraction<F> value;
     
     public RationalFunction(Polynomial<F> n, Polynomial<F> d)
     {
-	if(d.isZero())
-	    throw new IllegalArgumentException("Denominator is zero");
-	num = n;
-	den = d;
-	this.normalize();
+	this(n, d, DEFAULT_MODE);
+    }
+
+    public RationalFunction(Polynomial<F> n, Polynomial<F> d, Mode mode)
+    {
+	this(n, d, mode, false, SIZE_THRESHOLD);
     }
     
-    private RationalFunction(Polynomial<F> n, Polynomial<F> d, boolean norm)
+    private RationalFunction(Polynomial<F> n, Polynomial<F> d, Mode mode, boolean normalized, long limit)
     {
-	if(d.isZero())
+	this(new Fraction<>(n, d, normalized, limit), mode);
+    }
+
+    private RationalFunction(Fraction<F> v, Mode mode)
+    {
+	if(v.den.isZero())
 	    throw new IllegalArgumentException("Denominator is zero");
-	num = n;
-	den = d;
-	if(norm)
+	this.mode = mode;
+	value = v;
+	if(!v.normalized && (mode == Mode.EAGER || mode == Mode.LAZY && v.num.degree() + v.den.degree() > v.limit))
 	    this.normalize();
     }
+
+    /**
+     * Result of an operation on the fractions x and y
+     */
+    private RationalFunction<F> create(Polynomial<F> n, Polynomial<F> d, Fraction<F> x, Fraction<F> y,
+	    boolean normalized)
+    {
+	return new RationalFunction<>(n, d, mode, normalized, Math.max(x.limit, y.limit));
+    }
     
+    /**
+     * Context of the rational functions over the field of obj
+     */
+    public static <F extends Field<F>> RingContext<RationalFunction<F>> context(F obj)
+    {
+	return obj.context().derived(RationalFunction.class, () -> new RingContext<RationalFunction<F>>(
+		constant(Polynomial.ZERO(obj), Polynomial.ONE(obj)), constant(Polynomial.ONE(obj), Polynomial.ONE(obj)),
+		constant(Polynomial.ONE(obj), Polynomial.NONE(obj))));
+    }
+
+    private static <F extends Field<F>> RationalFunction<F> constant(Polynomial<F> n, Polynomial<F> d)
+    {
+	return new RationalFunction<F>(n, d, DEFAULT_MODE, true, SIZE_THRESHOLD);
+    }
+
+    @Override
+    public RingContext<RationalFunction<F>> context()
+    {
+	return context(value.num.obj);
+    }
+
     @Override
     public RationalFunction<F> NONE()
     {
-	return new RationalFunction<F>(num.NONE(), den.ONE());
+	return context().NONE();
     }
 
     @Override
     public RationalFunction<F> ZERO()
     {
-	return new RationalFunction<F>(num.ZERO(), den.ONE());
+	return context().ZERO();
     }
 
     @Override
     public RationalFunction<F> ONE()
     {
-	return new RationalFunction<F>(num.ONE(), den.ONE());
+	return context().ONE();
     }
     
+    /**
+     * Numerator of the normal form
+     */
     public Polynomial<F> getNumerator()
     {
-	return num;
+	return normalize().num;
     }
     
+    /**
+     * Denominator of the normal form
+     */
     public Polynomial<F> getDenominator()
     {
-	return den;
+	return normalize().den;
+    }
+
+    public Mode getMode()
+    {
+	return mode;
+    }
+
+    public boolean isNormalized()
+    {
+	return value.normalized;
+    }
+    
+    /**
+     * Value at a point
+     * @throws ArithmeticException if x is a pole
+     */
+    public F evaluate(F x)
+    {
+	Fraction<F> v = normalize();
+	F d = v.den.evaluate(x);
+	if(d.isZero())
+	    throw new ArithmeticException("Pole at " + x);
+	return v.num.evaluate(x).div(d);
+    }
+
+    public F[] evaluate(F[] points)
+    {
+	return evaluate(points, false);
+    }
+
+    /**
+     * Values at many points by multipoint evaluation of numerator and
+     * denominator
+     * @throws ArithmeticException if one of the points is a pole
+     */
+    public F[] evaluate(F[] points, boolean parallel)
+    {
+	Fraction<F> v = normalize();
+	F[] n = MultipointEvaluation.evaluate(v.num, points, parallel);
+	F[] d = MultipointEvaluation.evaluate(v.den, points, parallel);
+	for(int i = 0; i < d.length; i++)
+	    if(d[i].isZero())
+		throw new ArithmeticException("Pole at " + points[i]);
+	d = Field.invertAll(d);
+	for(int i = 0; i < n.length; i++)
+	    n[i] = n[i].mul(d[i]);
+	return n;
     }
     
-    private void normalize()
+    /**
+     * Normal form, computed from one snapshot of the fraction and published
+     * at once
+     */
+    private Fraction<F> normalize()
     {
-	Polynomial<F> gcd = PolynomialGCD.polynomialGCD(num, den);
-	num = PolynomialDivision.polynomialDivision(num, gcd).getFirst();
-	den = PolynomialDivision.polynomialDivision(den, gcd).getFirst();
-	if(num.isZero())
-	    den = den.ONE();
+	Fraction<F> v = value;
+	if(v.normalized)
+	    return v;
+	Polynomial<F> n = v.num, d = v.den;
+	if(n.isZero())
+	    v = new Fraction<>(n, d.ONE(), true, SIZE_THRESHOLD);
 	else
 	{
-	    F lc = num.getLeadingCoef().invert();
-	    num = num.mul(lc);
-	    den = den.mul(lc);
+	    Polynomial<F> gcd = PolynomialGCD.polynomialGCD(n, d);
+	    if(gcd.degree() > 0)
+	    {
+		n = divide(n, gcd);
+		d = divide(d, gcd);
+	    }
+	    v = monic(n, d, Math.max(SIZE_THRESHOLD, 2 * (n.degree() + d.degree())));
 	}
+	value = v;
+	return v;
+    }
+
+    /**
+     * Normalized fraction n/d with the numerator made monic
+     */
+    private static <F extends Field<F>> Fraction<F> monic(Polynomial<F> n, Polynomial<F> d, long limit)
+    {
+	F lc = n.getLeadingCoef();
+	if(!lc.isOne())
+	{
+	    lc = lc.invert();
+	    n = n.mul(lc);
+	    d = d.mul(lc);
+	}
+	return new Fraction<>(n, d, true, limit);
+    }
+
+    private static <F extends Field<F>> Polynomial<F> divide(Polynomial<F> a, Polynomial<F> b)
+    {
+	return PolynomialDivision.polynomialDivision(a, b).getFirst();
     }
     
     public boolean equals(Object b)
     {
 	if(!(b instanceof RationalFunction<?>))
 	    return false;
-	RationalFunction<?> r = (RationalFunction<?>)b;
-	return r.getNumerator().equals(this.getNumerator()) && r.getDenominator().equals(this.getDenominator());
+	Fraction<?> x = normalize(), y = ((RationalFunction<?>) b).normalize();
+	return y.num.equals(x.num) && y.den.equals(x.den);
+    }
+
+    /**
+     * Hash of the normalized numerator and denominator
+     */
+    public int hashCode()
+    {
+	Fraction<F> v = normalize();
+	return 31 * v.num.hashCode() + v.den.hashCode();
     }
 
     @Override
     public RationalFunction<F> add(RationalFunction<F> b)
     {
-	return new RationalFunction<>(num.mul(b.getDenominator()).add(den.mul(b.getNumerator())), den.mul(b.getDenominator()));
+	Fraction<F> x = value, y = b.value;
+	if(x.den.equals(y.den))
+	{
+	    // shared denominator
+	    Polynomial<F> t = x.num.add(y.num);
+	    if(!x.normalized || !y.normalized || mode != Mode.EAGER)
+		return create(t, x.den, x, y, false);
+	    if(t.isZero())
+		return create(t, x.den.ONE(), x, y, true);
+	    return reduced(t, x.den, x, y, x.den);
+	}
+	if(!x.normalized || !y.normalized || mode != Mode.EAGER)
+	    return create(x.num.mul(y.den).add(x.den.mul(y.num)), x.den.mul(y.den), x, y, false);
+	// n1/d1 + n2/d2 = (n1*(d2/g) + n2*(d1/g)) / (d1/g*d2), g = gcd(d1, d2)
+	Polynomial<F> g = PolynomialGCD.polynomialGCD(x.den, y.den);
+	Polynomial<F> d1 = x.den, d2 = y.den;
+	if(g.degree() > 0)
+	{
+	    d1 = divide(x.den, g);
+	    d2 = divide(y.den, g);
+	}
+	Polynomial<F> t = x.num.mul(d2).add(y.num.mul(d1));
+	if(t.isZero())
+	    return create(t, x.den.ONE(), x, y, true);
+	return reduced(t, d1.mul(y.den), x, y, g);
+    }
+
+    /**
+     * Normal form of t/d where only factors of g can be common
+     */
+    private RationalFunction<F> reduced(Polynomial<F> t, Polynomial<F> d, Fraction<F> x, Fraction<F> y,
+	    Polynomial<F> g)
+    {
+	if(g.degree() > 0)
+	{
+	    Polynomial<F> h = PolynomialGCD.polynomialGCD(t, g);
+	    if(h.degree() > 0)
+	    {
+		t = divide(t, h);
+		d = divide(d, h);
+	    }
+	}
+	return new RationalFunction<>(monic(t, d, Math.max(x.limit, y.limit)), mode);
     }
 
     @Override
     public RationalFunction<F> sub(RationalFunction<F> b)
     {
-	return new RationalFunction<>(num.mul(b.getDenominator()).sub(den.mul(b.getNumerator())), den.mul(b.getDenominator()));
+	return add(b.negate());
     }
 
     @Override
     public RationalFunction<F> mul(RationalFunction<F> b)
     {
-	return new RationalFunction<>(num.mul(b.getNumerator()), den.mul(b.getDenominator()));
+	Fraction<F> x = value, y = b.value;
+	if(!x.normalized || !y.normalized || mode != Mode.EAGER)
+	    return create(x.num.mul(y.num), x.den.mul(y.den), x, y, false);
+	if(x.num.isZero() || y.num.isZero())
+	    return create(x.num.ZERO(), x.den.ONE(), x, y, true);
+	// cancel crosswise: g1 = gcd(n1, d2), g2 = gcd(n2, d1), monic factors
+	// keep the numerator monic
+	Polynomial<F> g1 = PolynomialGCD.polynomialGCD(x.num, y.den), g2 = PolynomialGCD.polynomialGCD(y.num, x.den);
+	Polynomial<F> n1 = x.num, d2 = y.den, n2 = y.num, d1 = x.den;
+	if(g1.degree() > 0)
+	{
+	    n1 = divide(n1, g1);
+	    d2 = divide(d2, g1);
+	}
+	if(g2.degree() > 0)
+	{
+	    n2 = divide(n2, g2);
+	    d1 = divide(d1, g2);
+	}
+	return create(n1.mul(n2), d1.mul(d2), x, y, true);
     }
 
     @Override
     public RationalFunction<F> negate()
     {
-	return new RationalFunction<>(num, den.negate(), false);
+	Fraction<F> v = value;
+	return new RationalFunction<>(v.num, v.den.negate(), mode, v.normalized, v.limit);
     }
 
     @Override
     public boolean isZero()
     {
-	return num.isZero();
+	return value.num.isZero();
     }
 
     @Override
     public boolean isOne()
     {
-	return num.isOne() && den.isOne();
+	Fraction<F> v = value;
+	return v.num.equals(v.den);
     }
 
     @Override
     public RationalFunction<F> div(RationalFunction<F> b)
     {
-	return new RationalFunction<>(num.mul(b.getDenominator()), den.mul(b.getNumerator()));
+	return this.mul(b.invert());
     }
 
     @Override
     public RationalFunction<F> invert()
     {
-	return new RationalFunction<>(den, num);
+	Fraction<F> v = value;
+	if(v.normalized && !v.num.isZero())
+	    return new RationalFunction<>(monic(v.den, v.num, v.limit), mode);
+	return new RationalFunction<>(v.den, v.num, mode, v.normalized, v.limit);
     }
 
     @Override
@@ -142,7 +385,8 @@ public class RationalFunction<F extends Field<F>> implements Field<RationalFunct
     
     public String toString()
     {
-	return num+"/"+den;
+	Fraction<F> v = normalize();
+	return v.num+"/"+v.den;
     }
 
 }
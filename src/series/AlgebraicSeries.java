@@ -0,0 +1,130 @@
+package series;
+
+import java.lang.reflect.Array;
+
+import interfaces.Field;
+import polynomial.Polynomial;
+import polynomial.PolynomialMultiplication;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Power series root y(x) of P(x, y) = 0 through a simple root y0 of
+ *         P(0, y). Newton iteration y <- y - P(y)/P_y(y) doubles the number of
+ *         correct coefficients in each step; 1/P_y(y) is lifted along with y
+ *         by its own Newton step, so a step costs O(deg_y P) products on the
+ *         dense kernel of {@link PolynomialMultiplication}.
+ */
+public class AlgebraicSeries<F extends Field<F>>
+{
+    private final F[][] p, dp; // coefficients of y^j in P and P_y
+    private final F obj;
+    private F[] y; // root modulo x^precision
+    private F[] z; // 1/P_y(y) modulo x^(precision/2)
+    private int precision;
+
+    @SuppressWarnings("unchecked")
+    private AlgebraicSeries(F[][] p, F y0)
+    {
+	this.p = p;
+	this.obj = y0;
+	dp = p.length == 0 ? p : (F[][]) Array.newInstance(p.getClass().getComponentType(), p.length - 1);
+	F factor = obj.ZERO();
+	for(int j = 1; j < p.length; j++)
+	{
+	    factor = factor.add(obj.ONE());
+	    dp[j - 1] = Polynomial.newArray(obj, p[j].length);
+	    for(int i = 0; i < p[j].length; i++)
+		dp[j - 1][i] = p[j][i].mul(factor);
+	}
+	y = Polynomial.newArray(obj, 1);
+	y[0] = y0;
+	if(!horner(p, y, 1)[0].isZero())
+	    throw new IllegalArgumentException("y0 is not a root of P(0, y)");
+	F d = horner(dp, y, 1)[0];
+	if(d.isZero())
+	    throw new ArithmeticException("y0 is not a simple root of P(0, y)");
+	z = Polynomial.newArray(obj, 1);
+	z[0] = d.invert();
+	precision = 1;
+    }
+
+    /**
+     * Root y(x) of P(x, y) = 0 with y(0) = y0, further coefficients are
+     * computed by lifting when they are requested
+     * @param p polynomial in y whose coefficients are polynomials in x
+     * @throws IllegalArgumentException if P(0, y0) != 0
+     * @throws ArithmeticException if y0 is a multiple root of P(0, y)
+     */
+    @SuppressWarnings("unchecked")
+    public static <F extends Field<F>> PowerSeries<F> solve(Polynomial<Polynomial<F>> p, F y0)
+    {
+	F[][] c = (F[][]) Array.newInstance(Polynomial.newArray(y0, 0).getClass(), (int) p.degree() + 1);
+	for(int j = 0; j < c.length; j++)
+	    c[j] = p.getCoef(j).toArray();
+	AlgebraicSeries<F> s = new AlgebraicSeries<F>(c, y0);
+	return new PowerSeries<F>(s::coefficient, y0);
+    }
+
+    private F coefficient(Long k)
+    {
+	while(precision <= k)
+	    lift();
+	return y[k.intValue()];
+    }
+
+    /**
+     * Doubles the precision of y
+     */
+    private void lift()
+    {
+	int n = precision;
+	// z <- z - z*(P_y(y)*z - 1) mod x^n
+	F[] e = truncate(PolynomialMultiplication.multiply(horner(dp, y, n), z, obj), n);
+	e[0] = e[0].sub(obj.ONE());
+	F[] d = truncate(PolynomialMultiplication.multiply(z, e, obj), n);
+	F[] w = Polynomial.newArray(obj, n);
+	for(int i = 0; i < n; i++)
+	    w[i] = i < z.length ? z[i].sub(d[i]) : d[i].negate();
+	z = w;
+	// y <- y - z*P(y) mod x^(2n), P(y) = 0 mod x^n
+	F[] r = horner(p, y, 2 * n);
+	F[] high = Polynomial.newArray(obj, n);
+	System.arraycopy(r, n, high, 0, n);
+	F[] c = truncate(PolynomialMultiplication.multiply(z, high, obj), n);
+	F[] v = truncate(y, 2 * n);
+	for(int i = 0; i < n; i++)
+	    v[n + i] = c[i].negate();
+	y = v;
+	precision = 2 * n;
+    }
+
+    /**
+     * Sum of c[j]*y^j modulo x^m
+     */
+    private F[] horner(F[][] c, F[] y, int m)
+    {
+	F[] r = truncate(Polynomial.newArray(obj, 0), m);
+	F[] t = truncate(y, m);
+	for(int j = c.length - 1; j >= 0; j--)
+	{
+	    if(j < c.length - 1)
+		r = truncate(PolynomialMultiplication.multiply(r, t, obj), m);
+	    for(int i = 0; i < c[j].length && i < m; i++)
+		r[i] = r[i].add(c[j][i]);
+	}
+	return r;
+    }
+
+    /**
+     * First n coefficients of a, padded with zeros
+     */
+    private F[] truncate(F[] a, int n)
+    {
+	F[] b = Polynomial.newArray(obj, n);
+	for(int i = 0; i < n; i++)
+	    b[i] = i < a.length ? a[i] : obj.ZERO();
+	return b;
+    }
+}
@@ -0,0 +1,178 @@
+package series;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import interfaces.Field;
+import misc.Budget;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Asynchronous coefficients of lazy power series. A request first
+ *         requests the coefficients the series reads from its operands (the
+ *         two factors of a product, the series of an inverse, ...), so
+ *         independent parts of an expression are computed concurrently, and
+ *         then computes the coefficient on the executor. Concurrent requests
+ *         for the same coefficient or prefix of the same series share one
+ *         future. The tasks run on virtual threads if the runtime has them
+ *         and on the common pool otherwise. Series built by other means than
+ *         the arithmetic of {@link PowerSeries} are computed by a single task.
+ */
+public class AsyncCoefficients
+{
+    private static Executor defaultExecutor;
+
+    private final Executor executor;
+    private final Budget budget;
+    private final ConcurrentHashMap<Request, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Coefficient k or the first k coefficients of a series, equal for the
+     * same series object
+     */
+    private static class Request
+    {
+	final PowerSeries<?> series;
+	final long k;
+	final boolean prefix;
+
+	Request(PowerSeries<?> series, long k, boolean prefix)
+	{
+	    this.series = series;
+	    this.k = k;
+	    this.prefix = prefix;
+	}
+
+	public boolean equals(Object b)
+	{
+	    if(!(b instanceof Request))
+		return false;
+	    Request r = (Request) b;
+	    return r.series == series && r.k == k && r.prefix == prefix;
+	}
+
+	public int hashCode()
+	{
+	    return 31 * (31 * System.identityHashCode(series) + Long.hashCode(k)) + (prefix ? 1 : 0);
+	}
+    }
+
+    public AsyncCoefficients()
+    {
+	this(defaultExecutor(), null);
+    }
+
+    /**
+     * @param budget budget of all tasks, null for none
+     */
+    public AsyncCoefficients(Executor executor, Budget budget)
+    {
+	this.executor = executor;
+	this.budget = budget;
+    }
+
+    /**
+     * Executor with one virtual thread per task (Java 21 and later), the
+     * common pool on older runtimes
+     */
+    public static synchronized Executor defaultExecutor()
+    {
+	if(defaultExecutor == null)
+	{
+	    try
+	    {
+		defaultExecutor = (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+	    }
+	    catch(ReflectiveOperationException e)
+	    {
+		defaultExecutor = ForkJoinPool.commonPool();
+	    }
+	}
+	return defaultExecutor;
+    }
+
+    /**
+     * Coefficient k of s
+     */
+    public <F extends Field<F>> CompletableFuture<F> coefficient(PowerSeries<F> s, long k)
+    {
+	return request(new Request(s, k, false), () -> after(operands(s, k, s.readsPrefix()), () -> s.getCoef(k)));
+    }
+
+    /**
+     * First n coefficients of s
+     */
+    public <F extends Field<F>> CompletableFuture<F[]> coefficients(PowerSeries<F> s, int n)
+    {
+	if(n == 0)
+	    return CompletableFuture.completedFuture(s.getCoefs(0));
+	return request(new Request(s, n, true), () -> after(operands(s, n - 1, true), () -> s.getCoefs(n)));
+    }
+
+    /**
+     * Number of requests that are not completed
+     */
+    public int pending()
+    {
+	return inFlight.size();
+    }
+
+    /**
+     * Requests of coefficient k or of the coefficients up to k of the operands
+     */
+    private <F extends Field<F>> CompletableFuture<?>[] operands(PowerSeries<F> s, long k, boolean prefix)
+    {
+	List<PowerSeries<F>> operands = s.operands();
+	CompletableFuture<?>[] r = new CompletableFuture<?>[operands.size()];
+	for(int i = 0; i < r.length; i++)
+	{
+	    if(!prefix)
+		r[i] = coefficient(operands.get(i), k);
+	    else if(k >= Integer.MAX_VALUE)
+		throw new IllegalArgumentException("Index too large: " + k);
+	    else
+		r[i] = coefficients(operands.get(i), (int) k + 1);
+	}
+	return r;
+    }
+
+    private <T> CompletableFuture<T> after(CompletableFuture<?>[] operands, Supplier<T> work)
+    {
+	Supplier<T> task = budget == null ? work : () -> budget.run(work);
+	return CompletableFuture.allOf(operands).thenApplyAsync(v -> task.get(), executor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> request(Request key, Supplier<CompletableFuture<T>> start)
+    {
+	CompletableFuture<T> result = new CompletableFuture<>();
+	CompletableFuture<?> running = inFlight.putIfAbsent(key, result);
+	if(running != null)
+	    return (CompletableFuture<T>) running;
+	CompletableFuture<T> f;
+	try
+	{
+	    f = start.get();
+	}
+	catch(RuntimeException e)
+	{
+	    f = new CompletableFuture<>();
+	    f.completeExceptionally(e);
+	}
+	f.whenComplete((v, e) -> {
+	    inFlight.remove(key, result);
+	    if(e != null)
+		result.completeExceptionally(e);
+	    else
+		result.complete(v);
+	});
+	return result;
+    }
+}
@@ -0,0 +1,669 @@
+package series;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.Function;
+
+import interfaces.Accumulator;
+import interfaces.Field;
+import misc.Pair;
+import polynomial.Polynomial;
+import polynomial.PolynomialDivision;
+import polynomial.PolynomialGCD;
+import rational.RationalFunction;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         D-finite power series sum a_n x^n given by a P-recurrence
+ *         rec[0](n) a_n + rec[1](n) a_(n-1) + ... + rec[r](n) a_(n-r) = 0 for
+ *         n >= m and the initial values a_0, ..., a_(m-1) (a_n = 0 for n < 0).
+ *         Coefficient n is computed from the r previous ones at a cost
+ *         independent of n, a single far coefficient by binary splitting of
+ *         the product of the companion matrices. Where rec[0](n) = 0 for some
+ *         n >= m, the coefficient is taken from the series the recurrence was
+ *         derived from if there is one.
+ */
+public class HolonomicSeries<F extends Field<F>>
+{
+    private final Polynomial<F>[] rec;
+    private final F[] initial;
+    private final Function<Long, F> fallback; // coefficients where rec[0] vanishes, may be null
+    public final F obj;
+    private PowerSeries<F> series;
+
+    /**
+     * Series with the recurrence sum rec[i](n) a_(n-i) = 0 for n >=
+     * initial.length
+     */
+    public HolonomicSeries(Polynomial<F>[] rec, F[] initial, F obj)
+    {
+	this(rec, initial, null, obj);
+    }
+
+    private HolonomicSeries(Polynomial<F>[] rec, F[] initial, Function<Long, F> fallback, F obj)
+    {
+	if(rec.length == 0 || rec[0].isZero())
+	    throw new IllegalArgumentException("Leading coefficient of the recurrence is zero");
+	this.rec = rec;
+	this.initial = initial;
+	this.fallback = fallback;
+	this.obj = obj;
+    }
+
+    /**
+     * Series solution of the differential equation sum q[j](x) y^(j)(x) = 0
+     * with the initial coefficients y_0, ..., y_(m-1)
+     * @throws IllegalArgumentException if fewer initial coefficients are
+     *         given than the equation leaves undetermined
+     */
+    public static <F extends Field<F>> HolonomicSeries<F> fromODE(Polynomial<F>[] q, F[] initial, F obj)
+    {
+	Pair<Polynomial<F>[], Integer> rec = recurrence(q, obj);
+	if(initial.length < rec.getSecond())
+	    throw new IllegalArgumentException("At least " + rec.getSecond() + " initial coefficients are needed");
+	return normalize(rec.getFirst(), initial, null, obj);
+    }
+
+    /**
+     * Recurrence of the coefficients of the solutions of sum q[j](x) y^(j)(x)
+     * = 0, paired with the index from which it holds
+     */
+    @SuppressWarnings("unchecked")
+    private static <F extends Field<F>> Pair<Polynomial<F>[], Integer> recurrence(Polynomial<F>[] q, F obj)
+    {
+	// x^k y^(j) contributes (n-t)(n-t-1)...(n-t-j+1) a_(n-t) to the
+	// coefficient of x^(n-max) where t = max - (j-k)
+	int max = Integer.MIN_VALUE, min = Integer.MAX_VALUE;
+	for(int j = 0; j < q.length; j++)
+	    for(int k = 0; k <= q[j].degree(); k++)
+		if(!q[j].getCoef(k).isZero())
+		{
+		    max = Math.max(max, j - k);
+		    min = Math.min(min, j - k);
+		}
+	if(max == Integer.MIN_VALUE)
+	    throw new IllegalArgumentException("Differential equation is zero");
+	Polynomial<F>[] rec = (Polynomial<F>[]) new Polynomial<?>[max - min + 1];
+	Arrays.fill(rec, Polynomial.ZERO(obj));
+	for(int j = 0; j < q.length; j++)
+	    for(int k = 0; k <= q[j].degree(); k++)
+	    {
+		F c = q[j].getCoef(k);
+		if(c.isZero())
+		    continue;
+		int t = max - (j - k);
+		Polynomial<F> f = Polynomial.MONOMIAL(0, c);
+		for(int i = 0; i < j; i++)
+		    f = f.mul(Polynomial.LINEAR(integer(-t - i, obj), obj.ONE()));
+		rec[t] = rec[t].add(f);
+	    }
+	return new Pair<>(rec, max);
+    }
+
+    /**
+     * Recurrence without vanishing leading or trailing coefficients
+     */
+    @SuppressWarnings("unchecked")
+    private static <F extends Field<F>> HolonomicSeries<F> normalize(Polynomial<F>[] rec, F[] initial,
+	    Function<Long, F> fallback, F obj)
+    {
+	int first = 0, last = rec.length - 1;
+	while(first < last && rec[first].isZero())
+	    first++;
+	while(last > first && rec[last].isZero())
+	    last--;
+	// sum_(i >= first) rec[i](n) a_(n-i) = 0 holds for n - first
+	Polynomial<F>[] r = (Polynomial<F>[]) new Polynomial<?>[last - first + 1];
+	for(int i = 0; i < r.length; i++)
+	    r[i] = first == 0 ? rec[first + i] : PolynomialDivision.expandInAPoint(rec[first + i], integer(first, obj));
+	return new HolonomicSeries<F>(r, initial, fallback, obj);
+    }
+
+    public int order()
+    {
+	return rec.length - 1;
+    }
+
+    public Polynomial<F>[] getRecurrence()
+    {
+	return rec.clone();
+    }
+
+    public F[] getInitialValues()
+    {
+	return initial.clone();
+    }
+
+    /**
+     * Power series whose coefficients are computed by the recurrence, in
+     * order and without recursion
+     */
+    public PowerSeries<F> series()
+    {
+	if(series != null)
+	    return series;
+	int r = order();
+	HashMap<Long, F> map = new HashMap<>();
+	long[] computed = { 0 };
+	Function<Long, F> g = k -> {
+	    F x = integer(computed[0], obj);
+	    for(long n = computed[0]; n <= k; n++, x = x.add(obj.ONE()))
+	    {
+		if(n < initial.length)
+		{
+		    map.put(n, initial[(int) n]);
+		    continue;
+		}
+		F lead = rec[0].evaluate(x);
+		if(lead.isZero())
+		{
+		    map.put(n, singular(n));
+		    continue;
+		}
+		Accumulator<F> sum = obj.accumulator();
+		for(int i = 1; i <= r && i <= n; i++)
+		    sum.addProduct(rec[i].evaluate(x), map.get(n - i));
+		map.put(n, sum.result().div(lead).negate());
+	    }
+	    computed[0] = Math.max(computed[0], k + 1);
+	    return map.get(k);
+	};
+	series = new PowerSeries<F>(g, map, obj);
+	return series;
+    }
+
+    private F singular(long n)
+    {
+	if(fallback == null)
+	    throw new ArithmeticException("Recurrence is singular at n = " + n);
+	return fallback.apply(n);
+    }
+
+    /**
+     * Coefficient a_n by binary splitting, for n far beyond the computed
+     * coefficients
+     */
+    public F coefficient(long n)
+    {
+	if(n < initial.length)
+	    return initial[(int) n];
+	if(series != null && series.getNumberOfEvaluatedCoefs() > n)
+	    return series.getCoef(n);
+	int r = order();
+	if(r == 0)
+	    return rec[0].evaluate(integer(n, obj)).isZero() ? singular(n) : obj.ZERO();
+	// state (a_(k-1), ..., a_(k-r)) before step k
+	F[] v = Polynomial.newArray(obj, r);
+	for(int j = 0; j < r; j++)
+	{
+	    long i = initial.length - 1 - j;
+	    v[j] = i < 0 ? obj.ZERO() : initial[(int) i];
+	}
+	long k = initial.length;
+	while(k <= n)
+	{
+	    // next singular step, only searched if it can be handled
+	    long s = n + 1;
+	    if(fallback != null)
+	    {
+		F x = integer(k, obj);
+		for(long i = k; i <= n; i++, x = x.add(obj.ONE()))
+		    if(rec[0].evaluate(x).isZero())
+		    {
+			s = i;
+			break;
+		    }
+	    }
+	    if(s > k)
+	    {
+		Pair<F[][], F> p = product(k, s);
+		F inverse = p.getSecond().invert();
+		F[] w = Polynomial.newArray(obj, r);
+		for(int i = 0; i < r; i++)
+		    w[i] = obj.dot(p.getFirst()[i], v).mul(inverse);
+		v = w;
+	    }
+	    if(s <= n)
+	    {
+		System.arraycopy(v, 0, v, 1, r - 1);
+		v[0] = fallback.apply(s);
+	    }
+	    k = s + 1;
+	}
+	return v[0];
+    }
+
+    /**
+     * Product of the steps k in [lo, hi) as numerator matrix and denominator
+     */
+    private Pair<F[][], F> product(long lo, long hi)
+    {
+	int r = order();
+	if(hi - lo == 1)
+	{
+	    F x = integer(lo, obj);
+	    F lead = rec[0].evaluate(x);
+	    if(lead.isZero())
+		throw new ArithmeticException("Recurrence is singular at n = " + lo);
+	    F[][] m = newMatrix(r);
+	    for(int i = 0; i < r; i++)
+		m[0][i] = rec[i + 1].evaluate(x).negate();
+	    for(int i = 1; i < r; i++)
+		m[i][i - 1] = lead;
+	    return new Pair<>(m, lead);
+	}
+	long mid = (lo + hi) >>> 1;
+	Pair<F[][], F> a = product(lo, mid), b = product(mid, hi);
+	F[][] m = newMatrix(r);
+	for(int i = 0; i < r; i++)
+	    for(int j = 0; j < r; j++)
+	    {
+		Accumulator<F> sum = obj.accumulator();
+		for(int l = 0; l < r; l++)
+		    sum.addProduct(b.getFirst()[i][l], a.getFirst()[l][j]);
+		m[i][j] = sum.result();
+	    }
+	return new Pair<>(m, b.getSecond().mul(a.getSecond()));
+    }
+
+    private F[][] newMatrix(int r)
+    {
+	F[][] m = newMatrix(obj, r, r);
+	for(F[] row : m)
+	    Arrays.fill(row, obj.ZERO());
+	return m;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <F extends Field<F>> F[][] newMatrix(F obj, int rows, int cols)
+    {
+	return (F[][]) Array.newInstance(obj.getClass(), rows, cols);
+    }
+
+    /**
+     * Series of the sum, the recurrence has order at most the sum of the
+     * orders
+     */
+    public HolonomicSeries<F> add(HolonomicSeries<F> b)
+    {
+	int r1 = order(), r2 = b.order();
+	RationalFunction<F>[][] u = shifts(r1 + r2 + 1), w = b.shifts(r1 + r2 + 1);
+	RationalFunction<F>[][] c = newRationalMatrix(r1 + r2 + 1, r1 + r2);
+	for(int k = 0; k <= r1 + r2; k++)
+	{
+	    System.arraycopy(u[k], 0, c[k], 0, r1);
+	    System.arraycopy(w[k], 0, c[k], r1, r2);
+	}
+	int start = Math.max(0, Math.max(initial.length - r1, b.initial.length - r2));
+	return closure(c, start, n -> coefficient(n).add(b.coefficient(n)), n -> series().getCoef(n).add(
+		b.series().getCoef(n)));
+    }
+
+    /**
+     * Series of the product, from the symmetric product of the differential
+     * equations (order at most the product of the orders)
+     */
+    public HolonomicSeries<F> mul(HolonomicSeries<F> b)
+    {
+	Polynomial<F>[] p = differentialEquation(), q = b.differentialEquation();
+	int r1 = p.length - 1, r2 = q.length - 1;
+	RationalFunction<F>[][] c = newRationalMatrix(r1 * r2 + 1, r1 * r2);
+	// derivatives of y*z in the basis y^(i) z^(j)
+	c[0][0] = c[0][0].ONE();
+	for(int k = 1; k < c.length; k++)
+	    for(int i = 0; i < r1; i++)
+		for(int j = 0; j < r2; j++)
+		{
+		    RationalFunction<F> f = c[k - 1][i * r2 + j];
+		    if(f.isZero())
+			continue;
+		    c[k][i * r2 + j] = c[k][i * r2 + j].add(derivative(f));
+		    // y^(i+1) z^(j) + y^(i) z^(j+1)
+		    if(i + 1 < r1)
+			c[k][(i + 1) * r2 + j] = c[k][(i + 1) * r2 + j].add(f);
+		    else
+			for(int l = 0; l < r1; l++)
+			    c[k][l * r2 + j] = c[k][l * r2 + j].sub(f.mul(new RationalFunction<F>(p[l], p[r1])));
+		    if(j + 1 < r2)
+			c[k][i * r2 + j + 1] = c[k][i * r2 + j + 1].add(f);
+		    else
+			for(int l = 0; l < r2; l++)
+			    c[k][i * r2 + l] = c[k][i * r2 + l].sub(f.mul(new RationalFunction<F>(q[l], q[r2])));
+		}
+	Function<Long, F> values = n -> {
+	    Accumulator<F> sum = obj.accumulator();
+	    for(long i = 0; i <= n; i++)
+		sum.addProduct(series().getCoef(i), b.series().getCoef(n - i));
+	    return sum.result();
+	};
+	Polynomial<F>[] ode = clear(dependency(c));
+	Pair<Polynomial<F>[], Integer> rec = recurrence(ode, obj);
+	F[] init = Polynomial.newArray(obj, Math.max(0, rec.getSecond()));
+	for(int n = 0; n < init.length; n++)
+	    init[n] = values.apply((long) n);
+	return normalize(rec.getFirst(), init, values, obj);
+    }
+
+    /**
+     * Differential equation sum q[j](x) y^(j)(x) = 0 of the series: the
+     * recurrence gives L y = P with L = sum x^i rec[i](theta + i), theta =
+     * x d/dx, and a polynomial P of degree less than the number of initial
+     * values, then (P d/dx - P') L y = 0
+     */
+    @SuppressWarnings("unchecked")
+    public Polynomial<F>[] differentialEquation()
+    {
+	int r = order();
+	long d = maxDegree();
+	// theta^e = sum S(e, j) x^j (d/dx)^j
+	F[][] stirling = newMatrix(obj, (int) d + 1, 0);
+	for(int e = 0; e <= d; e++)
+	{
+	    stirling[e] = Polynomial.newArray(obj, e + 1);
+	    for(int j = 0; j <= e; j++)
+	    {
+		if(e == 0)
+		    stirling[e][j] = obj.ONE();
+		else if(j == 0)
+		    stirling[e][j] = obj.ZERO();
+		else
+		    stirling[e][j] = (j < e ? stirling[e - 1][j].mul(integer(j, obj)) : obj.ZERO()).add(
+			    stirling[e - 1][j - 1]);
+	    }
+	}
+	Polynomial<F>[] q = (Polynomial<F>[]) new Polynomial<?>[(int) d + 1];
+	Arrays.fill(q, Polynomial.ZERO(obj));
+	for(int i = 0; i <= r; i++)
+	{
+	    F[] e = PolynomialDivision.expandInAPoint(rec[i], integer(i, obj)).toArray();
+	    for(int k = 0; k < e.length; k++)
+		for(int j = 0; j <= k; j++)
+		    q[j] = q[j].add(Polynomial.MONOMIAL(i + j, e[k].mul(stirling[k][j])));
+	}
+	F[] inhomogeneity = Polynomial.newArray(obj, initial.length);
+	for(int n = 0; n < initial.length; n++)
+	{
+	    Accumulator<F> sum = obj.accumulator();
+	    F x = integer(n, obj);
+	    for(int i = 0; i <= r && i <= n; i++)
+		sum.addProduct(rec[i].evaluate(x), initial[n - i]);
+	    inhomogeneity[n] = sum.result();
+	}
+	Polynomial<F> p = new Polynomial<F>(obj, inhomogeneity);
+	int last = q.length - 1;
+	while(last > 0 && q[last].isZero())
+	    last--;
+	q = Arrays.copyOf(q, last + 1);
+	if(p.isZero())
+	    return q;
+	Polynomial<F> dp = derivative(p);
+	Polynomial<F>[] h = (Polynomial<F>[]) new Polynomial<?>[q.length + 1];
+	for(int j = 0; j < h.length; j++)
+	{
+	    h[j] = j < q.length ? p.mul(derivative(q[j])).sub(dp.mul(q[j])) : Polynomial.ZERO(obj);
+	    if(j > 0)
+		h[j] = h[j].add(p.mul(q[j - 1]));
+	}
+	return h;
+    }
+
+    /**
+     * Series of f(c*x^k)
+     */
+    @SuppressWarnings("unchecked")
+    public HolonomicSeries<F> substitute(F c, int k)
+    {
+	if(c.isZero() || k < 1)
+	    throw new IllegalArgumentException("Substitution must be c*x^k with c != 0 and k >= 1");
+	F[] scale = Polynomial.newArray(obj, (int) maxDegree() + 1);
+	F inverse = integer(k, obj).invert(); // n = m/k
+	scale[0] = obj.ONE();
+	for(int d = 1; d < scale.length; d++)
+	    scale[d] = scale[d - 1].mul(inverse);
+	Polynomial<F>[] r = (Polynomial<F>[]) new Polynomial<?>[k * order() + 1];
+	Arrays.fill(r, Polynomial.ZERO(obj));
+	F power = obj.ONE();
+	for(int i = 0; i <= order(); i++, power = power.mul(c))
+	{
+	    F[] a = rec[i].toArray();
+	    for(int d = 0; d < a.length; d++)
+		a[d] = a[d].mul(scale[d]).mul(power);
+	    r[k * i] = new Polynomial<F>(obj, a);
+	}
+	Function<Long, F> f = m -> m % k == 0 ? c.pow(m / k).mul(coefficient(m / k)) : obj.ZERO();
+	F[] init = Polynomial.newArray(obj, k * initial.length);
+	for(int m = 0; m < init.length; m++)
+	    init[m] = m % k == 0 ? c.pow(m / k).mul(initial[m / k]) : obj.ZERO();
+	return new HolonomicSeries<F>(r, init, f, obj);
+    }
+
+    private long maxDegree()
+    {
+	long d = 0;
+	for(Polynomial<F> p : rec)
+	    d = Math.max(d, p.degree());
+	return d;
+    }
+
+    /**
+     * Vectors of a_(n+k), k < count, in the basis a_n, ..., a_(n+r-1) over
+     * the rational functions in n
+     */
+    private RationalFunction<F>[][] shifts(int count)
+    {
+	int r = order();
+	RationalFunction<F>[][] u = newRationalMatrix(count, r);
+	for(int k = 0; k < count && k < r; k++)
+	    u[k][k] = u[k][k].ONE();
+	for(int k = r; k < count; k++)
+	{
+	    // a_(n+k) = -sum rec[i](n+k)/rec[0](n+k) a_(n+k-i)
+	    F x = integer(k, obj);
+	    Polynomial<F> lead = PolynomialDivision.expandInAPoint(rec[0], x);
+	    for(int i = 1; i <= r; i++)
+	    {
+		RationalFunction<F> f = new RationalFunction<F>(PolynomialDivision.expandInAPoint(rec[i], x).negate(),
+			lead);
+		if(f.isZero())
+		    continue;
+		for(int j = 0; j < r; j++)
+		    u[k][j] = u[k][j].add(f.mul(u[k - i][j]));
+	    }
+	}
+	return u;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RationalFunction<F>[][] newRationalMatrix(int rows, int cols)
+    {
+	RationalFunction<F> zero = RationalFunction.context(obj).ZERO();
+	RationalFunction<F>[][] m = (RationalFunction<F>[][]) new RationalFunction<?>[rows][cols];
+	for(RationalFunction<F>[] row : m)
+	    Arrays.fill(row, zero);
+	return m;
+    }
+
+    /**
+     * Series of the sequence whose shifts by k have the vectors c[k]
+     * @param start the relation of the vectors holds for n >= start
+     * @param fallback coefficients where the recurrence is singular
+     * @param values coefficients for the initial values
+     */
+    @SuppressWarnings("unchecked")
+    private HolonomicSeries<F> closure(RationalFunction<F>[][] c, int start, Function<Long, F> fallback,
+	    Function<Long, F> values)
+    {
+	// sum lambda[k](n) b_(n+k) = 0
+	Polynomial<F>[] lambda = clear(dependency(c));
+	int rho = lambda.length - 1;
+	Polynomial<F>[] rec = (Polynomial<F>[]) new Polynomial<?>[rho + 1];
+	F shift = integer(-rho, obj);
+	for(int i = 0; i <= rho; i++)
+	    rec[i] = PolynomialDivision.expandInAPoint(lambda[rho - i], shift);
+	F[] init = Polynomial.newArray(obj, rho + start);
+	for(int n = 0; n < init.length; n++)
+	    init[n] = values.apply((long) n);
+	return normalize(rec, init, fallback, obj);
+    }
+
+    /**
+     * First linear dependency sum lambda[k] c[k] = 0 with lambda[last] != 0
+     */
+    private RationalFunction<F>[] dependency(RationalFunction<F>[][] c)
+    {
+	RationalFunction<F> one = RationalFunction.context(obj).ONE();
+	for(int rho = 0; rho < c.length; rho++)
+	{
+	    // columns c[0], ..., c[rho]
+	    RationalFunction<F>[][] m = newRationalMatrix(c[0].length, rho + 1);
+	    for(int i = 0; i < m.length; i++)
+		for(int k = 0; k <= rho; k++)
+		    m[i][k] = c[k][i];
+	    RationalFunction<F>[] lambda = kernel(m, one);
+	    if(lambda != null)
+		return lambda;
+	}
+	throw new IllegalStateException("No linear dependency");
+    }
+
+    /**
+     * Polynomial multiples of the rational functions by their common
+     * denominator
+     */
+    @SuppressWarnings("unchecked")
+    private Polynomial<F>[] clear(RationalFunction<F>[] lambda)
+    {
+	Polynomial<F> lcm = Polynomial.ONE(obj);
+	for(RationalFunction<F> l : lambda)
+	    lcm = PolynomialDivision.polynomialDivision(lcm.mul(l.getDenominator()),
+		    PolynomialGCD.polynomialGCD(lcm, l.getDenominator())).getFirst();
+	Polynomial<F>[] p = (Polynomial<F>[]) new Polynomial<?>[lambda.length];
+	for(int k = 0; k < p.length; k++)
+	    p[k] = lambda[k].getNumerator().mul(
+		    PolynomialDivision.polynomialDivision(lcm, lambda[k].getDenominator()).getFirst());
+	return p;
+    }
+
+    private RationalFunction<F> derivative(RationalFunction<F> f)
+    {
+	Polynomial<F> n = f.getNumerator(), d = f.getDenominator();
+	return new RationalFunction<F>(derivative(n).mul(d).sub(n.mul(derivative(d))), d.mul(d));
+    }
+
+    private Polynomial<F> derivative(Polynomial<F> p)
+    {
+	F[] c = p.toArray();
+	if(c.length == 0)
+	    return p;
+	F[] d = Polynomial.newArray(obj, c.length - 1);
+	for(int k = 1; k < c.length; k++)
+	    d[k - 1] = c[k].mul(integer(k, obj));
+	return new Polynomial<F>(obj, d);
+    }
+
+    /**
+     * Nonzero vector x with m*x = 0 (Gaussian elimination)
+     * @return null if the columns of m are independent
+     */
+    static <K extends Field<K>> K[] kernel(K[][] m, K obj)
+    {
+	int rows = m.length, cols = m.length == 0 ? 0 : m[0].length;
+	if(rows == 0)
+	    return null;
+	K[][] a = m.clone();
+	for(int i = 0; i < rows; i++)
+	    a[i] = m[i].clone();
+	int[] pivot = new int[rows];
+	int rank = 0;
+	for(int j = 0; j < cols && rank < rows; j++)
+	{
+	    int p = rank;
+	    while(p < rows && a[p][j].isZero())
+		p++;
+	    if(p == rows)
+		continue;
+	    K[] t = a[p];
+	    a[p] = a[rank];
+	    a[rank] = t;
+	    K inverse = a[rank][j].invert();
+	    for(int l = j; l < cols; l++)
+		a[rank][l] = a[rank][l].mul(inverse);
+	    for(int i = 0; i < rows; i++)
+	    {
+		if(i == rank || a[i][j].isZero())
+		    continue;
+		K f = a[i][j];
+		for(int l = j; l < cols; l++)
+		    a[i][l] = a[i][l].sub(f.mul(a[rank][l]));
+	    }
+	    pivot[rank++] = j;
+	}
+	if(rank == cols)
+	    return null;
+	// the first free column
+	int free = 0;
+	for(int i = 0; i < rank && pivot[i] == free; i++)
+	    free++;
+	K[] x = Polynomial.newArray(obj, cols);
+	Arrays.fill(x, obj.ZERO());
+	x[free] = obj.ONE();
+	for(int i = 0; i < rank; i++)
+	    x[pivot[i]] = a[i][free].negate();
+	return x;
+    }
+
+    /**
+     * Recurrence of the given order with coefficients of the given degree
+     * fitted to the coefficients of s; the system has window more equations
+     * than unknowns as verification
+     * @return null if no such recurrence exists
+     */
+    @SuppressWarnings("unchecked")
+    public static <F extends Field<F>> HolonomicSeries<F> guess(PowerSeries<F> s, int order, int degree,
+	    int window)
+    {
+	F obj = s.getCoef(0L);
+	int unknowns = (order + 1) * (degree + 1);
+	F[] a = s.getCoefs(order + unknowns + window);
+	F[][] m = newMatrix(obj, unknowns + window, 0);
+	for(int e = 0; e < m.length; e++)
+	{
+	    int n = order + e;
+	    m[e] = Polynomial.newArray(obj, unknowns);
+	    F x = integer(n, obj);
+	    for(int i = 0; i <= order; i++)
+	    {
+		F power = a[n - i];
+		for(int d = 0; d <= degree; d++, power = power.mul(x))
+		    m[e][i * (degree + 1) + d] = power;
+	    }
+	}
+	F[] u = kernel(m, obj);
+	if(u == null)
+	    return null;
+	Polynomial<F>[] rec = (Polynomial<F>[]) new Polynomial<?>[order + 1];
+	for(int i = 0; i <= order; i++)
+	    rec[i] = new Polynomial<F>(obj, Arrays.copyOfRange(u, i * (degree + 1), (i + 1) * (degree + 1)));
+	return normalize(rec, a, n -> s.getCoef(n), obj);
+    }
+
+    /**
+     * n as element of the field of obj
+     */
+    private static <F extends Field<F>> F integer(long n, F obj)
+    {
+	F r = obj.ZERO(), p = obj.ONE();
+	for(long k = Math.abs(n); k > 0; k >>= 1, p = p.add(p))
+	    if((k & 1) == 1)
+		r = r.add(p);
+	return n < 0 ? r.negate() : r;
+    }
+
+    public String toString()
+    {
+	return "Holonomic(" + Arrays.toString(rec) + " | " + Arrays.toString(initial) + ")";
+    }
+}
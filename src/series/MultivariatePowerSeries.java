@@ -0,0 +1,472 @@
+package series;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import interfaces.Field;
+import interfaces.IntegralDomain;
+import interfaces.RingContext;
+import polynomial.MultivariatePolynomial;
+import polynomial.Polynomial;
+import polynomial.PolynomialMultiplication;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Truncated power series in the variables x0, ..., x(n-1). The
+ *         coefficients of x^e with e_i < bounds[i] (and, for total degree
+ *         truncation, e_0 + ... + e_(n-1) < degree) are kept in one dense
+ *         array, x(n-1) varying fastest. Products are Kronecker substitutions:
+ *         x_i -> y^(k_i) with k_i large enough that no carries occur, so the
+ *         product is one univariate product on the kernels of
+ *         {@link PolynomialMultiplication} (NTT over prime fields). Inverses
+ *         are computed by Newton iteration on the total degree.
+ */
+public class MultivariatePowerSeries<F extends Field<F>> implements IntegralDomain<MultivariatePowerSeries<F>>
+{
+    private final int[] bounds, strides;
+    private final int degree; // total degree bound, Integer.MAX_VALUE if none
+    private final F[] coefs;
+    public final F obj;
+
+    /**
+     * Zero series truncated per variable: exponents e_i < bounds[i]
+     */
+    public static <F extends Field<F>> MultivariatePowerSeries<F> perVariable(F obj, int... bounds)
+    {
+	return new MultivariatePowerSeries<F>(obj, bounds.clone(), Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * Zero series in vars variables truncated at total degree: e_0 + ... +
+     * e_(n-1) < degree
+     */
+    public static <F extends Field<F>> MultivariatePowerSeries<F> totalDegree(F obj, int vars, int degree)
+    {
+	return new MultivariatePowerSeries<F>(obj, filled(vars, degree), degree, null);
+    }
+
+    private MultivariatePowerSeries(F obj, int[] bounds, int degree, F[] coefs)
+    {
+	if(bounds.length == 0)
+	    throw new IllegalArgumentException("No variables");
+	this.obj = obj;
+	this.bounds = bounds;
+	this.degree = degree;
+	this.strides = new int[bounds.length];
+	long size = 1;
+	for(int i = bounds.length - 1; i >= 0; i--)
+	{
+	    if(bounds[i] < 1)
+		throw new IllegalArgumentException("Bounds must be positive");
+	    strides[i] = (int) size;
+	    size *= bounds[i];
+	    if(size > Integer.MAX_VALUE)
+		throw new IllegalArgumentException("Too many coefficients");
+	}
+	if(coefs == null)
+	{
+	    coefs = Polynomial.newArray(obj, (int) size);
+	    Arrays.fill(coefs, obj.ZERO());
+	}
+	this.coefs = coefs;
+    }
+
+    private static int[] filled(int vars, int degree)
+    {
+	int[] b = new int[vars];
+	Arrays.fill(b, Math.max(1, degree));
+	return b;
+    }
+
+    private MultivariatePowerSeries<F> create(F[] c)
+    {
+	return new MultivariatePowerSeries<F>(obj, bounds, degree, c);
+    }
+
+    private F[] zeros()
+    {
+	F[] c = Polynomial.newArray(obj, coefs.length);
+	Arrays.fill(c, obj.ZERO());
+	return c;
+    }
+
+    /**
+     * Series of the same shape with the coefficients f(e) for all kept
+     * exponent vectors e
+     */
+    public MultivariatePowerSeries<F> tabulate(Function<int[], F> f)
+    {
+	F[] c = zeros();
+	int[] e = new int[bounds.length];
+	for(int k = 0; k < c.length; k++, next(e))
+	    if(kept(e))
+		c[k] = f.apply(e.clone());
+	return create(c);
+    }
+
+    /**
+     * The variable x_i as series of this shape
+     */
+    public MultivariatePowerSeries<F> variable(int i)
+    {
+	F[] c = zeros();
+	int[] e = new int[bounds.length];
+	e[i] = 1;
+	if(bounds[i] > 1 && kept(e))
+	    c[strides[i]] = obj.ONE();
+	return create(c);
+    }
+
+    public MultivariatePowerSeries<F> constant(F a)
+    {
+	F[] c = zeros();
+	if(degree > 0)
+	    c[0] = a;
+	return create(c);
+    }
+
+    /**
+     * The truncation of p as series of this shape
+     */
+    public MultivariatePowerSeries<F> valueOf(MultivariatePolynomial<F> p)
+    {
+	if(p.variables() != bounds.length)
+	    throw new IllegalArgumentException("Different numbers of variables");
+	F[] c = zeros();
+	for(int k = 0; k < p.terms(); k++)
+	{
+	    int[] e = p.exponents(k);
+	    if(inBox(e) && kept(e))
+		c[index(e)] = p.coefficient(k);
+	}
+	return create(c);
+    }
+
+    public MultivariatePolynomial<F> toPolynomial()
+    {
+	int[][] e = new int[coefs.length][];
+	int[] x = new int[bounds.length];
+	for(int k = 0; k < coefs.length; k++, next(x))
+	    e[k] = x.clone();
+	return MultivariatePolynomial.of(bounds.length, obj, e, coefs);
+    }
+
+    public int variables()
+    {
+	return bounds.length;
+    }
+
+    public int[] getBounds()
+    {
+	return bounds.clone();
+    }
+
+    /**
+     * Total degree bound (Integer.MAX_VALUE for per-variable truncation)
+     */
+    public int getDegree()
+    {
+	return degree;
+    }
+
+    /**
+     * Coefficient of x^e (zero beyond the truncation)
+     */
+    public F getCoef(int... e)
+    {
+	if(e.length != bounds.length)
+	    throw new IllegalArgumentException("Different numbers of variables");
+	return inBox(e) && kept(e) ? coefs[index(e)] : obj.ZERO();
+    }
+
+    private boolean inBox(int[] e)
+    {
+	for(int i = 0; i < e.length; i++)
+	    if(e[i] < 0 || e[i] >= bounds[i])
+		return false;
+	return true;
+    }
+
+    private boolean kept(int[] e)
+    {
+	return sum(e) < degree;
+    }
+
+    private static long sum(int[] e)
+    {
+	long s = 0;
+	for(int x : e)
+	    s += x;
+	return s;
+    }
+
+    private int index(int[] e)
+    {
+	int k = 0;
+	for(int i = 0; i < e.length; i++)
+	    k += e[i] * strides[i];
+	return k;
+    }
+
+    /**
+     * Next exponent vector in the order of the array
+     */
+    private void next(int[] e)
+    {
+	for(int i = e.length - 1; i >= 0; i--)
+	{
+	    if(++e[i] < bounds[i])
+		return;
+	    e[i] = 0;
+	}
+    }
+
+    private void check(MultivariatePowerSeries<F> b)
+    {
+	if(!Arrays.equals(bounds, b.bounds) || degree != b.degree)
+	    throw new IllegalArgumentException("Different truncations");
+    }
+
+    public static <F extends Field<F>> RingContext<MultivariatePowerSeries<F>> context(F obj, int[] bounds, int degree)
+    {
+	RingContext<F> c = obj.context();
+	return c.derived(Arrays.asList(MultivariatePowerSeries.class, degree, Arrays.toString(bounds)), () -> {
+	    MultivariatePowerSeries<F> zero = new MultivariatePowerSeries<F>(obj, bounds.clone(), degree, null);
+	    return new RingContext<MultivariatePowerSeries<F>>(zero, zero.constant(c.ONE()), zero.constant(c.NONE()));
+	});
+    }
+
+    @Override
+    public RingContext<MultivariatePowerSeries<F>> context()
+    {
+	return context(obj, bounds, degree);
+    }
+
+    @Override
+    public MultivariatePowerSeries<F> NONE()
+    {
+	return context().NONE();
+    }
+
+    @Override
+    public MultivariatePowerSeries<F> ZERO()
+    {
+	return context().ZERO();
+    }
+
+    @Override
+    public MultivariatePowerSeries<F> ONE()
+    {
+	return context().ONE();
+    }
+
+    @Override
+    public MultivariatePowerSeries<F> add(MultivariatePowerSeries<F> b)
+    {
+	check(b);
+	F[] c = Polynomial.newArray(obj, coefs.length);
+	for(int k = 0; k < c.length; k++)
+	    c[k] = coefs[k].add(b.coefs[k]);
+	return create(c);
+    }
+
+    @Override
+    public MultivariatePowerSeries<F> sub(MultivariatePowerSeries<F> b)
+    {
+	check(b);
+	F[] c = Polynomial.newArray(obj, coefs.length);
+	for(int k = 0; k < c.length; k++)
+	    c[k] = coefs[k].sub(b.coefs[k]);
+	return create(c);
+    }
+
+    public MultivariatePowerSeries<F> mul(F a)
+    {
+	F[] c = Polynomial.newArray(obj, coefs.length);
+	for(int k = 0; k < c.length; k++)
+	    c[k] = coefs[k].mul(a);
+	return create(c);
+    }
+
+    @Override
+    public MultivariatePowerSeries<F> mul(MultivariatePowerSeries<F> b)
+    {
+	check(b);
+	return create(multiply(coefs, b.coefs, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Truncated product of two coefficient arrays of this shape, only terms
+     * of total degree < precision are computed
+     */
+    private F[] multiply(F[] a, F[] b, int precision)
+    {
+	int n = bounds.length;
+	int d = Math.min(precision, degree);
+	// exponents used in the product: e_i < lim[i]
+	int[] lim = new int[n];
+	for(int i = 0; i < n; i++)
+	    lim[i] = (int) Math.min(bounds[i], d);
+	// Kronecker strides, x_i -> y^(k[i]), no carries for e_i < 2*lim[i]-1
+	long[] k = new long[n];
+	long len = 1;
+	for(int i = n - 1; i >= 0; i--)
+	{
+	    k[i] = len;
+	    len *= i == 0 ? lim[i] : 2 * lim[i] - 1;
+	    if(len > Integer.MAX_VALUE / 2)
+		throw new ArithmeticException("Kronecker substitution too long");
+	}
+	F[] pa = Polynomial.newArray(obj, (int) len), pb = Polynomial.newArray(obj, (int) len);
+	Arrays.fill(pa, obj.ZERO());
+	Arrays.fill(pb, obj.ZERO());
+	int[] e = new int[n];
+	for(int j = 0; j < coefs.length; j++, next(e))
+	{
+	    if(!inLimit(e, lim, d))
+		continue;
+	    int p = (int) packed(e, k);
+	    pa[p] = a[j];
+	    pb[p] = b[j];
+	}
+	F[] prod = PolynomialMultiplication.multiply(Polynomial.trim(pa), Polynomial.trim(pb), obj);
+	F[] c = zeros();
+	Arrays.fill(e, 0);
+	for(int j = 0; j < c.length; j++, next(e))
+	{
+	    if(!inLimit(e, lim, d))
+		continue;
+	    long p = packed(e, k);
+	    if(p < prod.length)
+		c[j] = prod[(int) p];
+	}
+	return c;
+    }
+
+    private static boolean inLimit(int[] e, int[] lim, int d)
+    {
+	for(int i = 0; i < e.length; i++)
+	    if(e[i] >= lim[i])
+		return false;
+	return sum(e) < d;
+    }
+
+    private static long packed(int[] e, long[] k)
+    {
+	long p = 0;
+	for(int i = 0; i < e.length; i++)
+	    p += e[i] * k[i];
+	return p;
+    }
+
+    /**
+     * Largest total degree of a kept term plus one
+     */
+    private int precision()
+    {
+	long s = 1;
+	for(int b : bounds)
+	    s += b - 1;
+	return (int) Math.min(s, degree);
+    }
+
+    /**
+     * Inverse by Newton iteration g <- g + g*(1 - a*g), doubling the total
+     * degree up to which g is correct
+     * @throws ArithmeticException if the constant term is zero
+     */
+    public MultivariatePowerSeries<F> invert()
+    {
+	if(coefs[0].isZero())
+	    throw new ArithmeticException("Series is not invertible");
+	F[] g = zeros();
+	g[0] = coefs[0].invert();
+	int target = precision();
+	for(int k = 1; k < target;)
+	{
+	    k = Math.min(2 * k, target);
+	    F[] e = multiply(coefs, g, k);
+	    for(int j = 0; j < e.length; j++)
+		e[j] = e[j].negate();
+	    e[0] = e[0].add(obj.ONE());
+	    F[] h = multiply(g, e, k);
+	    for(int j = 0; j < g.length; j++)
+		h[j] = h[j].add(g[j]);
+	    g = h;
+	}
+	return create(g);
+    }
+
+    public MultivariatePowerSeries<F> div(MultivariatePowerSeries<F> b)
+    {
+	return mul(b.invert());
+    }
+
+    @Override
+    public MultivariatePowerSeries<F> negate()
+    {
+	F[] c = Polynomial.newArray(obj, coefs.length);
+	for(int k = 0; k < c.length; k++)
+	    c[k] = coefs[k].negate();
+	return create(c);
+    }
+
+    public MultivariatePowerSeries<F> pow(long p)
+    {
+	if(p < 0)
+	    return invert().pow(-p);
+	MultivariatePowerSeries<F> r = ONE(), a = this;
+	while(p > 0)
+	{
+	    if((p & 1) == 1)
+		r = r.mul(a);
+	    p >>= 1;
+	    if(p > 0)
+		a = a.mul(a);
+	}
+	return r;
+    }
+
+    @Override
+    public boolean isZero()
+    {
+	for(F c : coefs)
+	    if(!c.isZero())
+		return false;
+	return true;
+    }
+
+    @Override
+    public boolean isOne()
+    {
+	if(degree == 0)
+	    return true;
+	if(!coefs[0].isOne())
+	    return false;
+	for(int k = 1; k < coefs.length; k++)
+	    if(!coefs[k].isZero())
+		return false;
+	return true;
+    }
+
+    public boolean equals(Object b)
+    {
+	if(!(b instanceof MultivariatePowerSeries<?>))
+	    return false;
+	MultivariatePowerSeries<?> s = (MultivariatePowerSeries<?>) b;
+	return Arrays.equals(bounds, s.bounds) && degree == s.degree && Arrays.equals(coefs, s.coefs);
+    }
+
+    public int hashCode()
+    {
+	return 31 * Arrays.hashCode(bounds) + Arrays.hashCode(coefs);
+    }
+
+    public String toString()
+    {
+	String t = degree == Integer.MAX_VALUE ? Arrays.toString(bounds) : "total degree " + degree;
+	return toPolynomial() + " + O(" + t + ")";
+    }
+}
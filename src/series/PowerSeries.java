@@ -1,13 +1,25 @@
 package series;
 
+import interfaces.Accumulator;
 import interfaces.Field;
 import interfaces.IntegralDomain;
+import interfaces.RingContext;
+import misc.AlgebraEvents;
+import misc.Budget;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
 import polynomial.Polynomial;
+import polynomial.PolynomialDivision;
+import polynomial.PolynomialMultiplication;
 import number.BigRational;
 /**
  * 
@@ -19,8 +31,13 @@ public class PowerSeries<F extends Field<F>> implements IntegralDomain<PowerSeri
     public static Long MAX_TERMS = 30L;
     
     private Function<Long, F> f;
-    private HashMap<Long, F> vals;
+    private Map<Long, F> vals;
+    // guards vals; a lock instead of the monitor, which would pin virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
     F obj;
+    // series whose coefficients f reads, for the concurrent evaluation of AsyncCoefficients
+    private List<PowerSeries<F>> operands = Collections.emptyList();
+    private boolean readsPrefix;
 
     public PowerSeries(Function<Long, F> f, F c)
     {
@@ -30,6 +47,11 @@ public class PowerSeries<F extends Field<F>> implements IntegralDomain<PowerSeri
     }
     
     public PowerSeries(Function<Long, F> f, HashMap<Long, F> map, F c)
+    {
+	this(f, (Map<Long, F>) map, c);
+    }
+
+    private PowerSeries(Function<Long, F> f, Map<Long, F> map, F c)
     {
 	this.f = f;
 	vals = map;
@@ -48,13 +70,24 @@ public class PowerSeries<F extends Field<F>> implements IntegralDomain<PowerSeri
 	this(p, p.obj);
     }
     
+    /**
+     * Coefficient k, memoized (concurrent callers wait for each other)
+     */
     public F getCoef(Long k)
     {
-	if(vals.containsKey(k))
-	    return vals.get(k);
-	F c = f.apply(k);
-	vals.put(k, c);
-	return c;
+	lock.lock();
+	try
+	{
+	    if(vals.containsKey(k))
+		return vals.get(k);
+	    F c = f.apply(k);
+	    vals.put(k, c);
+	    return c;
+	}
+	finally
+	{
+	    lock.unlock();
+	}
     }
 
     public boolean isInvertible()
@@ -64,7 +97,15 @@ public class PowerSeries<F extends Field<F>> implements IntegralDomain<PowerSeri
     
     public long getNumberOfEvaluatedCoefs()
     {
-	return vals.size();
+	lock.lock();
+	try
+	{
+	    return vals.size();
+	}
+	finally
+	{
+	    lock.unlock();
+	}
     }
     
     /**
@@ -93,61 +134,148 @@ public class PowerSeries<F extends Field<F>> implements IntegralDomain<PowerSeri
     
     public PowerSeries<F> add(PowerSeries<F> b)
     {
-	return new PowerSeries<F>(n -> this.getCoef(n).add(b.getCoef(n)), obj);
+	return new PowerSeries<F>(n -> this.getCoef(n).add(b.getCoef(n)), obj).reads(false, this, b);
     }
 
     public PowerSeries<F> sub(PowerSeries<F> b)
     {
-	return new PowerSeries<F>(n -> this.getCoef(n).sub(b.getCoef(n)), obj);
+	return new PowerSeries<F>(n -> this.getCoef(n).sub(b.getCoef(n)), obj).reads(false, this, b);
     }
 
     public PowerSeries<F> mul(PowerSeries<F> b)
     {
 	Function<Long, F> g = k -> {
-	    F sum = obj.ZERO();
-	    for(Long i = 0L;i<=k;i++)
-		sum = sum.add(this.getCoef(i).mul(b.getCoef(k-i)));
-	    return sum;
+	    Budget.charge(k + 1);
+	    Accumulator<F> sum = obj.accumulator();
+	    for(long i = 0;i<=k;i++)
+		sum.addProduct(this.getCoef(i), b.getCoef(k-i));
+	    return sum.result();
 	};
-	return new PowerSeries<F>(g, obj);
+	return new PowerSeries<F>(g, obj).reads(true, this, b);
     }
     
     public PowerSeries<F> add(F b)
     {
-	return new PowerSeries<F>(n -> n==0L?this.getCoef(n).add(b):this.getCoef(n), obj);
+	return new PowerSeries<F>(n -> n==0L?this.getCoef(n).add(b):this.getCoef(n), obj).reads(false, this);
     }
 
     public PowerSeries<F> sub(F b)
     {
-	return new PowerSeries<F>(n -> n==0L?this.getCoef(n).sub(b):this.getCoef(n), obj);
+	return new PowerSeries<F>(n -> n==0L?this.getCoef(n).sub(b):this.getCoef(n), obj).reads(false, this);
     }
 
     public PowerSeries<F> mul(F b)
     {
-	return new PowerSeries<F>(n -> this.getCoef(n).mul(b), obj);
+	return new PowerSeries<F>(n -> this.getCoef(n).mul(b), obj).reads(false, this);
     }
     
+    /**
+     * First n coefficients as a dense array
+     */
+    public F[] getCoefs(int n)
+    {
+	AlgebraEvents.Event event = AlgebraEvents.BATCH_EVALUATION.begin();
+	F[] c = Polynomial.newArray(obj, n);
+	for(int i = 0; i < n; i++)
+	    c[i] = getCoef((long) i);
+	if(event.end())
+	    event.commit("series coefficients", 0L, (long) n, AlgebraEvents.bits((Object[]) c));
+	return c;
+    }
+
+    /**
+     * Product whose first n coefficients are computed at once by the dense
+     * kernel of {@link PolynomialMultiplication} (Karatsuba, or NTT over prime
+     * fields); later coefficients are computed lazily
+     */
+    public PowerSeries<F> mul(PowerSeries<F> b, int n)
+    {
+	F[] c = PolynomialMultiplication.multiply(getCoefs(n), b.getCoefs(n), obj);
+	HashMap<Long, F> map = new HashMap<>();
+	for(int i = 0; i < n; i++)
+	    map.put((long) i, c[i]);
+	return new PowerSeries<F>(mul(b).f, map, obj).reads(true, this, b);
+    }
+
     public PowerSeries<F> invert()
     {
 	if(!isInvertible())
 	    throw new IllegalStateException("PowerSeries cannot be inverted");
-	F a = this.getCoef(0L).pow(-1);
 	HashMap<Long, F> bTable = new HashMap<>();
-	bTable.put(0L, a);
+	bTable.put(0L, this.getCoef(0L).pow(-1));
+	return invert(bTable);
+    }
+
+    /**
+     * Inverse whose first n coefficients are computed at once by Newton
+     * iteration on the dense kernel; later coefficients are computed lazily
+     * (for n = 0 all of them, as by {@link #invert()})
+     * @throws IllegalArgumentException if n < 0
+     */
+    public PowerSeries<F> invert(int n)
+    {
+	if(n < 0)
+	    throw new IllegalArgumentException("Negative number of coefficients: " + n);
+	if(n == 0)
+	    return invert();
+	if(!isInvertible())
+	    throw new IllegalStateException("PowerSeries cannot be inverted");
+	F[] c = PolynomialDivision.inverseSeries(getCoefs(n), n, obj);
+	HashMap<Long, F> bTable = new HashMap<>();
+	for(int i = 0; i < n; i++)
+	    bTable.put((long) i, c[i]);
+	bTable.put(0L, this.getCoef(0L).pow(-1));
+	return invert(bTable);
+    }
+
+    private PowerSeries<F> invert(HashMap<Long, F> bTable)
+    {
+	F a = bTable.get(0L);
 	BiFunction<BiFunction, Long, F> g = (s, k) -> {
 	    if(bTable.containsKey(k))
 		return bTable.get(k);
-	    F sum = obj.ZERO();
-	    for(Long n =0L;n<k;n++)
-		sum = sum.add(this.getCoef(k-n).mul((F)s.apply(s, n)));
-	    F b = sum.mul(a.mul(obj.NONE()));
+	    Budget.charge(k);
+	    Accumulator<F> sum = obj.accumulator();
+	    for(long n =0;n<k;n++)
+		sum.addProduct(this.getCoef(k-n), (F)s.apply(s, n));
+	    F b = sum.result().mul(a.mul(obj.NONE()));
 	    bTable.put(k, b);
 	    return b;
 	};
-	Function<Long, F> h = k -> g.apply(g, k);
-	return new PowerSeries<F>(h, bTable, obj);
+	// the outermost call computes all missing coefficients up to k
+	Function<Long, F> h = k -> {
+	    AlgebraEvents.Event event = AlgebraEvents.SERIES_INVERSION.begin();
+	    F b = g.apply(g, k);
+	    if(event.end())
+		event.commit("lazy", k, AlgebraEvents.bits(b));
+	    return b;
+	};
+	return new PowerSeries<F>(h, bTable, obj).reads(true, this);
     }
     
+    /**
+     * Records the operands read by the coefficient function: coefficient k
+     * reads coefficient k of each operand, or all coefficients up to k if
+     * prefix is true
+     */
+    @SafeVarargs
+    private final PowerSeries<F> reads(boolean prefix, PowerSeries<F>... operands)
+    {
+	this.operands = Arrays.asList(operands);
+	this.readsPrefix = prefix;
+	return this;
+    }
+
+    List<PowerSeries<F>> operands()
+    {
+	return operands;
+    }
+
+    boolean readsPrefix()
+    {
+	return readsPrefix;
+    }
+
     public String toString(Long k)
     {
 	String s = "[";
@@ -178,28 +306,50 @@ public class PowerSeries<F extends Field<F>> implements IntegralDomain<PowerSeri
 	
     }
 
+    /**
+     * Context of the power series over the ring of obj. The shared constants
+     * memoize in a concurrent map.
+     */
+    public static <F extends Field<F>> RingContext<PowerSeries<F>> context(F obj)
+    {
+	RingContext<F> c = obj.context();
+	return c.derived(PowerSeries.class, () -> new RingContext<PowerSeries<F>>(constant(c.ZERO(), c.ZERO(), obj),
+		constant(c.ONE(), c.ZERO(), obj), constant(c.NONE(), c.ZERO(), obj)));
+    }
+
+    private static <F extends Field<F>> PowerSeries<F> constant(F c, F zero, F obj)
+    {
+	return new PowerSeries<F>(n -> n == 0L ? c : zero, new ConcurrentHashMap<>(), obj);
+    }
+
+    @Override
+    public RingContext<PowerSeries<F>> context()
+    {
+	return context(obj);
+    }
+
     @Override
     public PowerSeries<F> NONE()
     {
-	return new PowerSeries<F>(n -> n==0L?obj.NONE():obj.ZERO(), obj);
+	return context().NONE();
     }
 
     @Override
     public PowerSeries<F> ZERO()
     {
-	return new PowerSeries<F>(n -> obj.ZERO(), obj);
+	return context().ZERO();
     }
 
     @Override
     public PowerSeries<F> ONE()
     {
-	return new PowerSeries<F>(n -> n==0L?obj.ONE():obj.ZERO(), obj);
+	return context().ONE();
     }
 
     @Override
     public PowerSeries<F> negate()
     {
-	return new PowerSeries<F>(n -> this.getCoef(n).negate(), obj);
+	return new PowerSeries<F>(n -> this.getCoef(n).negate(), obj).reads(false, this);
     }
 
     /**
@@ -0,0 +1,315 @@
+package series;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.stream.IntStream;
+
+import modular.ChineseRemainder;
+import modular.ModularArithmetic;
+import modular.ModularSeries;
+import modular.PrimeField;
+import modular.Primes;
+import number.BigRational;
+
+/**
+ *
+ * @author KhAKhA
+ *
+ *         Expression in power series over the rationals (sums, products,
+ *         inverses and quotients of given series) that can be computed
+ *         exactly or by a multi-modular method: the first n coefficients are
+ *         computed modulo word-sized primes in parallel with the primitive
+ *         {@link ModularSeries} kernels and the rational coefficients are
+ *         recovered by Chinese remaindering and rational reconstruction.
+ *         Reconstruction stops as soon as a candidate agrees with the images
+ *         of a whole batch of fresh primes.
+ */
+public abstract class SeriesExpression
+{
+    /**
+     * Number of primes handled per parallel round
+     */
+    public static int BATCH_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private PowerSeries<BigRational> exact;
+
+    public static SeriesExpression of(PowerSeries<BigRational> s)
+    {
+	return new Leaf(s);
+    }
+
+    public SeriesExpression add(SeriesExpression b)
+    {
+	return new Binary(this, b, '+');
+    }
+
+    public SeriesExpression sub(SeriesExpression b)
+    {
+	return new Binary(this, b, '-');
+    }
+
+    public SeriesExpression mul(SeriesExpression b)
+    {
+	return new Binary(this, b, '*');
+    }
+
+    public SeriesExpression div(SeriesExpression b)
+    {
+	return new Binary(this, b, '/');
+    }
+
+    public SeriesExpression invert()
+    {
+	return new Inverse(this);
+    }
+
+    /**
+     * The expression as a lazy series with exact arithmetic
+     */
+    public synchronized PowerSeries<BigRational> exact()
+    {
+	if(exact == null)
+	    exact = computeExact();
+	return exact;
+    }
+
+    /**
+     * The series of the expression, the first n coefficients are computed by
+     * the multi-modular method, later ones by exact arithmetic
+     */
+    public PowerSeries<BigRational> evaluate(int n)
+    {
+	BigRational[] c = coefficients(n);
+	HashMap<Long, BigRational> table = new HashMap<>();
+	for(int k = 0; k < n; k++)
+	    table.put(Long.valueOf(k), c[k]);
+	return new PowerSeries<BigRational>(k -> exact().getCoef(k), table, BigRational.ZERO);
+    }
+
+    /**
+     * First n coefficients by the multi-modular method
+     * @throws ArithmeticException if a series with constant term zero is
+     *         inverted
+     */
+    public BigRational[] coefficients(int n)
+    {
+	prepare(n);
+	if(n == 0)
+	    return new BigRational[0];
+	// primes for which the products need no three-prime transform
+	int logLength = 32 - Integer.numberOfLeadingZeros(Math.max(1, 2 * n - 2));
+	int primeIndex = 0;
+	BigInteger modulus = BigInteger.ONE;
+	BigInteger[] residues = new BigInteger[n];
+	for(int i = 0; i < n; i++)
+	    residues[i] = BigInteger.ZERO;
+	BigRational[] candidate = null;
+	while(true)
+	{
+	    final int first = primeIndex;
+	    long[][] images = IntStream.range(0, BATCH_SIZE).parallel()
+		    .mapToObj(i -> standardImage(n, PrimeField.of(Primes.fourierPrime(first + i, logLength))))
+		    .toArray(long[][]::new);
+	    primeIndex += BATCH_SIZE;
+	    if(candidate != null && agrees(candidate, images, first, logLength))
+		return candidate;
+	    for(int i = 0; i < images.length; i++)
+	    {
+		if(images[i] == null)
+		    continue;
+		long p = Primes.fourierPrime(first + i, logLength);
+		ChineseRemainder.combine(residues, modulus, images[i], p);
+		modulus = modulus.multiply(BigInteger.valueOf(p));
+	    }
+	    candidate = reconstruct(residues, modulus);
+	}
+    }
+
+    /**
+     * First n coefficients modulo the prime of f in Montgomery form
+     * @return null if the prime divides a denominator or the constant term of
+     *         an inverted series
+     */
+    public abstract long[] image(int n, PrimeField f);
+
+    abstract PowerSeries<BigRational> computeExact();
+
+    /**
+     * Computes the exact coefficients the images need before the parallel
+     * part starts (the lazy series are not thread safe)
+     */
+    abstract void prepare(int n);
+
+    private long[] standardImage(int n, PrimeField f)
+    {
+	long[] a = image(n, f);
+	if(a == null)
+	    return null;
+	for(int k = 0; k < n; k++)
+	    a[k] = f.fromMontgomery(a[k]);
+	return a;
+    }
+
+    private static boolean agrees(BigRational[] candidate, long[][] images, int first, int logLength)
+    {
+	for(int i = 0; i < images.length; i++)
+	{
+	    if(images[i] == null)
+		continue;
+	    long p = Primes.fourierPrime(first + i, logLength);
+	    for(int k = 0; k < candidate.length; k++)
+		if(ModularArithmetic.reduce(candidate[k], p) != images[i][k])
+		    return false;
+	}
+	return true;
+    }
+
+    private static BigRational[] reconstruct(BigInteger[] residues, BigInteger modulus)
+    {
+	BigRational[] c = new BigRational[residues.length];
+	// the last coefficients are usually the largest, fail early
+	for(int k = c.length - 1; k >= 0; k--)
+	{
+	    c[k] = ChineseRemainder.rationalReconstruction(residues[k], modulus);
+	    if(c[k] == null)
+		return null;
+	}
+	return c;
+    }
+
+    private static class Leaf extends SeriesExpression
+    {
+	private final PowerSeries<BigRational> s;
+	private BigRational[] coefs = new BigRational[0];
+
+	Leaf(PowerSeries<BigRational> s)
+	{
+	    this.s = s;
+	}
+
+	@Override
+	void prepare(int n)
+	{
+	    if(coefs.length < n)
+		coefs = s.getCoefs(n);
+	}
+
+	@Override
+	public long[] image(int n, PrimeField f)
+	{
+	    long[] a = new long[n];
+	    for(int k = 0; k < n; k++)
+	    {
+		if(coefs[k].isZero())
+		    continue;
+		long r = ModularArithmetic.reduce(coefs[k], f.modulus());
+		if(r < 0)
+		    return null;
+		a[k] = f.toMontgomery(r);
+	    }
+	    return a;
+	}
+
+	@Override
+	PowerSeries<BigRational> computeExact()
+	{
+	    return s;
+	}
+    }
+
+    private static class Binary extends SeriesExpression
+    {
+	private final SeriesExpression a, b;
+	private final char op;
+
+	Binary(SeriesExpression a, SeriesExpression b, char op)
+	{
+	    this.a = a;
+	    this.b = b;
+	    this.op = op;
+	}
+
+	@Override
+	void prepare(int n)
+	{
+	    a.prepare(n);
+	    b.prepare(n);
+	    if(op == '/' && b.exact().getCoef(0L).isZero())
+		throw new ArithmeticException("Series is not invertible");
+	}
+
+	@Override
+	public long[] image(int n, PrimeField f)
+	{
+	    long[] x = a.image(n, f);
+	    long[] y = x == null ? null : b.image(n, f);
+	    if(y == null)
+		return null;
+	    switch(op)
+	    {
+	    case '+':
+		for(int k = 0; k < n; k++)
+		    x[k] = f.add(x[k], y[k]);
+		return x;
+	    case '-':
+		for(int k = 0; k < n; k++)
+		    x[k] = f.sub(x[k], y[k]);
+		return x;
+	    case '*':
+		return ModularSeries.multiply(x, y, n, f);
+	    default:
+		return y[0] == 0 ? null : ModularSeries.divide(x, y, n, f);
+	    }
+	}
+
+	@Override
+	PowerSeries<BigRational> computeExact()
+	{
+	    PowerSeries<BigRational> x = a.exact(), y = b.exact();
+	    switch(op)
+	    {
+	    case '+':
+		return x.add(y);
+	    case '-':
+		return x.sub(y);
+	    case '*':
+		return x.mul(y);
+	    default:
+		return x.mul(y.invert());
+	    }
+	}
+    }
+
+    private static class Inverse extends SeriesExpression
+    {
+	private final SeriesExpression a;
+
+	Inverse(SeriesExpression a)
+	{
+	    this.a = a;
+	}
+
+	@Override
+	void prepare(int n)
+	{
+	    a.prepare(n);
+	    if(a.exact().getCoef(0L).isZero())
+		throw new ArithmeticException("Series is not invertible");
+	}
+
+	@Override
+	public long[] image(int n, PrimeField f)
+	{
+	    long[] x = a.image(n, f);
+	    if(x == null || x[0] == 0)
+		return null;
+	    return ModularSeries.invert(x, n, f);
+	}
+
+	@Override
+	PowerSeries<BigRational> computeExact()
+	{
+	    return a.exact().invert();
+	}
+    }
+}